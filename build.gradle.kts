@@ -1,5 +1,24 @@
+import org.hibernate.bytecode.enhance.spi.DefaultEnhancementContext
+import org.hibernate.bytecode.enhance.spi.UnloadedClass
+import org.hibernate.bytecode.enhance.spi.UnloadedField
+import org.hibernate.bytecode.internal.BytecodeProviderInitiator
+import java.net.URLClassLoader
+
+// El enhancer de Hibernate corre dentro del build (ver compileJava más abajo); tiene que ser la misma
+// versión que hibernate-core de dependencies
+buildscript {
+    repositories {
+        mavenCentral()
+    }
+    dependencies {
+        classpath("org.hibernate.orm:hibernate-core:6.4.4.Final")
+    }
+}
+
 plugins {
     id("java")
+    //Benchmarks JMH en src/jmh/java, se corren con: gradle jmh
+    id("me.champeau.jmh") version "0.7.3"
 }
 
 group = "org.example"
@@ -21,6 +40,16 @@ dependencies {
 // Implementación de JPA (Hibernate), en tiempo de compilacion y ejecucion
     implementation("org.hibernate.orm:hibernate-core:6.4.4.Final")
 
+    // Caché de segundo nivel: Hibernate sobre JCache, con Ehcache como proveedor local (config en ehcache.xml).
+    // El clasificador jakarta es el que usa jakarta.xml.bind, igual que Hibernate 6
+    implementation("org.hibernate.orm:hibernate-jcache:6.4.4.Final")
+    runtimeOnly("org.ehcache:ehcache:3.10.8:jakarta")
+
+    // Pool de conexiones de HospitalJPA_PU (servicios.ProveedorConexionesHikari)
+    implementation("com.zaxxer:HikariCP:5.1.0")
+    // Hikari loguea con SLF4J (1.7, el que trae): sus avisos van a java.util.logging, igual que los de Hibernate
+    runtimeOnly("org.slf4j:slf4j-jdk14:1.7.36")
+
     //testImplementation("com.h2database:h2:2.4.240") No lo utilizo
     //Necesito h2 como base de datos en tiempo de ejecucion
     runtimeOnly("com.h2database:h2:2.2.224")
@@ -32,6 +61,77 @@ dependencies {
 
 }
 
+// Enhancement de bytecode de las entidades, sobre las clases recién compiladas:
+// - dirty tracking: cada setter anota el campo cambiado y el flush saltea las entidades que nadie tocó,
+//   en vez de comparar cada una campo por campo contra la copia de su estado tomada al cargar
+// - lazy initialization: los to-one LAZY se cargan recién al leerlos, sin subclases proxy. Ojo con los
+//   que se leen desasociados: quedan sin cargar (por eso Paciente.historiaClinica es EAGER)
+// - association management apagado: los métodos de las entidades (setHospital, agregarMedico, crearSala)
+//   ya mantienen los dos lados, y el enhancer además inicializaría la colección inversa en cada set
+//   (p. ej. todas las citas del paciente al crear una Cita)
+// Es lo mismo que hace el plugin org.hibernate.orm, que en 6.4 no anda con Gradle 9 (usa
+// ResolvedConfiguration.getFiles, que ya no existe). Las clases ya mejoradas se saltean.
+// Para medir sin enhancement (benchmarks.FlushSesionJpaBenchmark): -PsinEnhancement
+val enhancement = !project.hasProperty("sinEnhancement")
+tasks.compileJava {
+    // Cambiar la propiedad recompila: si no, quedarían las clases de la corrida anterior
+    inputs.property("enhancement", enhancement)
+    doLast {
+        if (!enhancement) {
+            return@doLast
+        }
+        val clases = destinationDirectory.get().asFile
+        val urls = (listOf(clases) + classpath.files).map { it.toURI().toURL() }.toTypedArray()
+        URLClassLoader(urls, DefaultEnhancementContext::class.java.classLoader).use { cargador ->
+            val contexto = object : DefaultEnhancementContext() {
+                override fun getLoadingClassLoader(): ClassLoader = cargador
+                override fun doDirtyCheckingInline(classDescriptor: UnloadedClass) = true
+                override fun hasLazyLoadableAttributes(classDescriptor: UnloadedClass) = true
+                override fun isLazyLoadable(field: UnloadedField) = true
+                override fun doBiDirectionalAssociationManagement(field: UnloadedField) = false
+            }
+            val enhancer = checkNotNull(BytecodeProviderInitiator.buildDefaultBytecodeProvider().getEnhancer(contexto)) {
+                "El proveedor de bytecode de Hibernate no tiene enhancer"
+            }
+            clases.resolve("entidades").walk().filter { it.extension == "class" }.forEach { archivo ->
+                val nombre = archivo.relativeTo(clases).invariantSeparatorsPath.removeSuffix(".class").replace('/', '.')
+                enhancer.enhance(nombre, archivo.readBytes())?.let { archivo.writeBytes(it) }
+            }
+        }
+    }
+}
+
 tasks.test {
     useJUnitPlatform()
-}
\ No newline at end of file
+}
+
+// Datos sintéticos (ver herramientas.GenerarDatos), p. ej.:
+// gradle generarDatos --args="csv build/datos 42 12 200 100000 1000000"
+tasks.register<JavaExec>("generarDatos") {
+    mainClass.set("herramientas.GenerarDatos")
+    classpath = sourceSets["main"].runtimeClasspath
+}
+
+// Carga masiva de un CSV de citas a la base (ver herramientas.CargarCitas), p. ej.:
+// gradle cargarCitas --args="build/datos/citas.csv - 1000 100"
+tasks.register<JavaExec>("cargarCitas") {
+    mainClass.set("herramientas.CargarCitas")
+    classpath = sourceSets["main"].runtimeClasspath
+}
+
+// Simulador de carga sobre CitaManager (ver herramientas.SimularCarga), p. ej.:
+// gradle simularCarga --args="hilos=8 segundos=60 pacientes=50000 citas=200000"
+tasks.register<JavaExec>("simularCarga") {
+    mainClass.set("herramientas.SimularCarga")
+    classpath = sourceSets["main"].runtimeClasspath
+}
+
+// Resultados en JSON para comparar entre commits. Un subconjunto: gradle jmh -PjmhIncludes=CsvBenchmark
+jmh {
+    jmhVersion.set("1.37")
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("results/jmh/results.json"))
+    (findProperty("jmhIncludes") as String?)?.let { includes.set(listOf(it)) }
+    // Profilers de JMH, p. ej. -PjmhProfilers=gc para los bytes reservados por operación
+    (findProperty("jmhProfilers") as String?)?.let { profilers.set(it.split(",")) }
+}
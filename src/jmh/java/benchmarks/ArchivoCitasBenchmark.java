@@ -0,0 +1,93 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import servicios.CitaManager;
+import servicios.ReporteImportacion;
+import servicios.SolicitudCita;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Guardado y carga completos de las citas, en CSV y en snapshot binario
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class ArchivoCitasBenchmark {
+    private static final int MEDICOS = 50;
+    private static final int PACIENTES = 1000;
+
+    @Param({"10000", "1000000"})
+    private int citas;
+
+    private DatosBenchmark datos;
+    private CitaManager manager;
+    private CitaManager destino;
+    private Path directorio;
+    private String csv;
+    private String snapshot;
+    private String salida;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        datos = new DatosBenchmark(MEDICOS, PACIENTES);
+        manager = new CitaManager();
+        destino = new CitaManager();
+        List<SolicitudCita> solicitudes = new ArrayList<>(citas);
+        for (int i = 0; i < citas; i++) {
+            int medico = i % MEDICOS;
+            solicitudes.add(SolicitudCita.builder()
+                    .paciente(datos.pacientes.get(i % PACIENTES))
+                    .medico(datos.medicos.get(medico))
+                    .sala(datos.salas.get(medico))
+                    .fechaHora(datos.turno(i / MEDICOS))
+                    .costo(DatosBenchmark.COSTO)
+                    .build());
+        }
+        manager.programarCitas(solicitudes);
+
+        directorio = Files.createTempDirectory("citas-benchmark");
+        csv = directorio.resolve("citas.csv").toString();
+        snapshot = directorio.resolve("citas.snap").toString();
+        salida = directorio.resolve("salida").toString();
+        manager.guardarCitas(csv);
+        manager.guardarSnapshot(snapshot);
+    }
+
+    @TearDown(Level.Trial)
+    public void limpiar() throws IOException {
+        try (Stream<Path> archivos = Files.walk(directorio)) {
+            for (Path archivo : archivos.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(archivo);
+            }
+        }
+    }
+
+    @Benchmark
+    public void guardarCitas() throws IOException {
+        manager.guardarCitas(salida);
+    }
+
+    @Benchmark
+    public void cargarCitas() throws Exception {
+        destino.cargarCitas(csv, datos.pacientesPorDni, datos.medicosPorDni, datos.salasPorNumero);
+    }
+
+    @Benchmark
+    public void guardarSnapshot() throws IOException {
+        manager.guardarSnapshot(salida);
+    }
+
+    @Benchmark
+    public ReporteImportacion cargarSnapshot() throws IOException {
+        return destino.cargarSnapshot(snapshot, datos.pacientesPorDni, datos.medicosPorDni, datos.salasPorNumero);
+    }
+}
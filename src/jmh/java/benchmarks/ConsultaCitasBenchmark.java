@@ -0,0 +1,56 @@
+package benchmarks;
+
+import entidades.Cita;
+import entidades.Paciente;
+import org.openjdk.jmh.annotations.*;
+import servicios.CitaManager;
+import servicios.SolicitudCita;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Consulta de las citas de un paciente, recorriendo los pacientes en orden
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConsultaCitasBenchmark {
+    private static final int MEDICOS = 50;
+    private static final int PACIENTES = 1000;
+
+    @Param({"10", "1000"})
+    private int citasPorPaciente;
+
+    private List<Paciente> pacientes;
+    private CitaManager manager;
+    private int siguiente;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        DatosBenchmark datos = new DatosBenchmark(MEDICOS, PACIENTES);
+        pacientes = datos.pacientes;
+        manager = new CitaManager();
+        List<SolicitudCita> solicitudes = new ArrayList<>(PACIENTES * citasPorPaciente);
+        for (int i = 0; i < PACIENTES * citasPorPaciente; i++) {
+            int medico = i % MEDICOS;
+            solicitudes.add(SolicitudCita.builder()
+                    .paciente(datos.pacientes.get(i % PACIENTES))
+                    .medico(datos.medicos.get(medico))
+                    .sala(datos.salas.get(medico))
+                    .fechaHora(datos.turno(i / MEDICOS))
+                    .costo(DatosBenchmark.COSTO)
+                    .build());
+        }
+        manager.programarCitas(solicitudes);
+    }
+
+    @Benchmark
+    public List<Cita> getCitasPorPaciente() {
+        Paciente paciente = pacientes.get(siguiente);
+        siguiente = (siguiente + 1) % PACIENTES;
+        return manager.getCitasPorPaciente(paciente);
+    }
+}
@@ -0,0 +1,94 @@
+package benchmarks;
+
+import entidades.EspecialidadMedica;
+import entidades.Hospital;
+import entidades.Paciente;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Las consultas JPQL de Main sobre una base ya cargada. Cada operación abre su propio EntityManager,
+// asi el contexto de persistencia no sirve de cache entre operaciones, y recorre lo mismo que Main muestra.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConsultasJpaBenchmark {
+    @Param({"100", "1000", "10000"})
+    private int pacientes;
+
+    private EntityManagerFactory emf;
+    private Long idHospital;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        emf = JpaBenchmarks.crearEmf();
+        Hospital hospital = JpaBenchmarks.crearHospital(8, pacientes);
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            em.persist(hospital);
+            em.getTransaction().commit();
+        } finally {
+            em.close();
+        }
+        idHospital = hospital.getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        emf.close();
+    }
+
+    @Benchmark
+    public void consultarHospital(Blackhole bh) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            Hospital hospital = em.createQuery("SELECT h FROM Hospital h WHERE h.id = :id", Hospital.class)
+                    .setParameter("id", idHospital)
+                    .getSingleResult();
+            bh.consume(hospital.getDepartamentos().size());
+            bh.consume(hospital.getPacientes().size());
+        } finally {
+            em.close();
+        }
+    }
+
+    @Benchmark
+    public void contarMedicosPorEspecialidad(Blackhole bh) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            for (EspecialidadMedica especialidad : EspecialidadMedica.values()) {
+                bh.consume(em.createQuery("SELECT COUNT(m) FROM Medico m WHERE m.especialidad = :esp", Long.class)
+                        .setParameter("esp", especialidad)
+                        .getSingleResult());
+            }
+        } finally {
+            em.close();
+        }
+    }
+
+    @Benchmark
+    public void pacientesConAlergias(Blackhole bh) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            List<Paciente> conAlergias = em.createQuery(
+                            "SELECT DISTINCT p FROM Paciente p " +
+                                    "JOIN p.historiaClinica h " +
+                                    "WHERE SIZE(h.alergias) > 0",
+                            Paciente.class)
+                    .getResultList();
+            for (Paciente paciente : conAlergias) {
+                bh.consume(paciente.getHistoriaClinica().getAlergias().size());
+            }
+        } finally {
+            em.close();
+        }
+    }
+}
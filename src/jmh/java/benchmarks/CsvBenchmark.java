@@ -0,0 +1,37 @@
+package benchmarks;
+
+import entidades.Cita;
+import org.openjdk.jmh.annotations.*;
+import servicios.CitaException;
+
+import java.util.concurrent.TimeUnit;
+
+// Conversión de una cita a y desde su línea CSV
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CsvBenchmark {
+    private DatosBenchmark datos;
+    private Cita cita;
+    private String linea;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        datos = new DatosBenchmark(1, 1);
+        cita = datos.cita(0, 0, 0);
+        linea = cita.toCsvString();
+    }
+
+    @Benchmark
+    public String toCsvString() {
+        return cita.toCsvString();
+    }
+
+    @Benchmark
+    public Cita fromCsvString() throws CitaException {
+        return Cita.fromCsvString(linea, datos.pacientesPorDni, datos.medicosPorDni, datos.salasPorNumero);
+    }
+}
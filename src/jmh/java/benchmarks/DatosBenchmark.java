@@ -0,0 +1,81 @@
+package benchmarks;
+
+import entidades.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Hospital de prueba para los benchmarks: un departamento de cardiología con 'cantidadMedicos' médicos,
+// una sala por médico y 'cantidadPacientes' pacientes. Las citas se generan siempre en el futuro.
+final class DatosBenchmark {
+    static final BigDecimal COSTO = new BigDecimal("15000.00");
+    // Lejos en el futuro, asi las validaciones de fecha pasada nunca rechazan citas de los benchmarks
+    static final LocalDateTime INICIO = LocalDateTime.of(2100, 1, 1, 8, 0);
+
+    final List<Medico> medicos = new ArrayList<>();
+    final List<Sala> salas = new ArrayList<>();
+    final List<Paciente> pacientes = new ArrayList<>();
+    final Map<String, Medico> medicosPorDni = new HashMap<>();
+    final Map<String, Sala> salasPorNumero = new HashMap<>();
+    final Map<String, Paciente> pacientesPorDni = new HashMap<>();
+
+    DatosBenchmark(int cantidadMedicos, int cantidadPacientes) {
+        Departamento cardiologia = Departamento.builder()
+                .nombre("Cardiología")
+                .especialidad(EspecialidadMedica.CARDIOLOGIA)
+                .build();
+
+        for (int i = 0; i < cantidadMedicos; i++) {
+            Medico medico = Medico.builder()
+                    .nombre("Medico" + i)
+                    .apellido("Benchmark")
+                    .dni(String.valueOf(10_000_000 + i))
+                    .fechaNacimiento(LocalDate.of(1975, 5, 15))
+                    .tipoSangre(TipoSangre.A_POSITIVO)
+                    .numeroMatricula("MP-" + (100_000 + i))
+                    .especialidad(EspecialidadMedica.CARDIOLOGIA)
+                    .build();
+            cardiologia.agregarMedico(medico);
+            Sala sala = cardiologia.crearSala("CARD-" + i, "Consultorio");
+            medicos.add(medico);
+            salas.add(sala);
+            medicosPorDni.put(medico.getDni(), medico);
+            salasPorNumero.put(sala.getNumero(), sala);
+        }
+
+        for (int i = 0; i < cantidadPacientes; i++) {
+            Paciente paciente = Paciente.builder()
+                    .nombre("Paciente" + i)
+                    .apellido("Benchmark")
+                    .dni(String.valueOf(20_000_000 + i))
+                    .fechaNacimiento(LocalDate.of(1985, 12, 5))
+                    .tipoSangre(TipoSangre.O_POSITIVO)
+                    .telefono("011-1111-1111")
+                    .direccion("Calle Falsa 123")
+                    .build();
+            pacientes.add(paciente);
+            pacientesPorDni.put(paciente.getDni(), paciente);
+        }
+    }
+
+    // Inicio del turno consecutivo número 'turno'; cada médico atiende siempre en su propia sala
+    LocalDateTime turno(int turno) {
+        return INICIO.plusHours(2L * turno);
+    }
+
+    Cita cita(int indiceMedico, int indicePaciente, int turno) {
+        return Cita.builder()
+                .paciente(pacientes.get(indicePaciente))
+                .medico(medicos.get(indiceMedico))
+                .sala(salas.get(indiceMedico))
+                .fechaHora(turno(turno))
+                .costo(COSTO)
+                .observaciones("Control; paciente derivado, traer estudios")
+                .build();
+    }
+}
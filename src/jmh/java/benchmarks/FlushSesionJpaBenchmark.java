@@ -0,0 +1,136 @@
+package benchmarks;
+
+import entidades.*;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Contexto de persistencia grande: 'citas' citas cargadas con su paciente, médico y sala en un solo
+// EntityManager, con una de cada MODIFICADA_CADA modificada. Es donde se nota el enhancement de bytecode
+// de las entidades (build.gradle.kts): sin él el flush compara cada entidad, campo por campo, contra la
+// copia de su estado tomada al cargar; con él cada entidad anota qué campos cambió y el flush saltea las
+// que nadie tocó. cargar mide la carga (con -prof gc, bytes por operación) y flush solo el flush.
+// Para comparar: gradle jmh -PjmhIncludes=FlushSesionJpaBenchmark -PjmhProfilers=gc [-PsinEnhancement]
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class FlushSesionJpaBenchmark {
+    private static final int MODIFICADA_CADA = 100;
+    private static final int LOTE = 1000;
+    private static final String CITAS =
+            "SELECT c FROM Cita c JOIN FETCH c.paciente p LEFT JOIN FETCH p.historiaClinica " +
+            "JOIN FETCH c.medico JOIN FETCH c.sala";
+
+    @State(Scope.Benchmark)
+    public static class Base {
+        @Param({"10000", "100000"})
+        int citas;
+
+        EntityManagerFactory emf;
+
+        @Setup(Level.Trial)
+        public void crearBase() {
+            emf = JpaBenchmarks.crearEmf();
+            persistirCitas(emf, citas);
+        }
+
+        @TearDown(Level.Trial)
+        public void cerrarBase() {
+            emf.close();
+        }
+
+        List<Cita> cargarYModificar(EntityManager em) {
+            List<Cita> cargadas = em.createQuery(CITAS, Cita.class).getResultList();
+            for (int i = 0; i < cargadas.size(); i += MODIFICADA_CADA) {
+                cargadas.get(i).setObservaciones("Reprogramada");
+            }
+            return cargadas;
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class SesionCargada extends Base {
+        EntityManager em;
+
+        @Setup(Level.Iteration)
+        public void cargar() {
+            em = emf.createEntityManager();
+            em.getTransaction().begin();
+            cargarYModificar(em);
+        }
+
+        @TearDown(Level.Iteration)
+        public void cerrar() {
+            em.getTransaction().rollback();
+            em.close();
+        }
+    }
+
+    @Benchmark
+    public List<Cita> cargar(Base estado) {
+        EntityManager em = estado.emf.createEntityManager();
+        try {
+            return estado.cargarYModificar(em);
+        } finally {
+            em.close();
+        }
+    }
+
+    @Benchmark
+    public void flush(SesionCargada estado) {
+        estado.em.flush();
+    }
+
+    // Hospital de 8 departamentos y 1000 pacientes; las citas rotan entre pacientes y médicos, cada una
+    // en una sala del departamento del médico, una por hora desde mañana
+    private static void persistirCitas(EntityManagerFactory emf, int citas) {
+        Hospital hospital = JpaBenchmarks.crearHospital(8, 1000);
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            em.persist(hospital);
+            em.getTransaction().commit();
+
+            List<Long> pacientes = new ArrayList<>();
+            for (Paciente paciente : hospital.getPacientes()) {
+                pacientes.add(paciente.getId());
+            }
+            List<Long[]> medicosYSalas = new ArrayList<>();
+            for (Departamento departamento : hospital.getDepartamentos()) {
+                for (Medico medico : departamento.getMedicos()) {
+                    medicosYSalas.add(new Long[]{medico.getId(), departamento.getSalas().get(0).getId()});
+                }
+            }
+            em.clear();
+
+            LocalDateTime inicio = LocalDate.now().plusDays(1).atTime(8, 0);
+            em.getTransaction().begin();
+            for (int i = 0; i < citas; i++) {
+                Long[] medicoYSala = medicosYSalas.get(i % medicosYSalas.size());
+                em.persist(Cita.builder()
+                        .paciente(em.getReference(Paciente.class, pacientes.get(i % pacientes.size())))
+                        .medico(em.getReference(Medico.class, medicoYSala[0]))
+                        .sala(em.getReference(Sala.class, medicoYSala[1]))
+                        .fechaHora(inicio.plusHours(i))
+                        .costo(BigDecimal.valueOf(50_000))
+                        .build());
+                if ((i + 1) % LOTE == 0) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+            em.getTransaction().commit();
+        } finally {
+            em.close();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package benchmarks;
+
+import entidades.*;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Soporte de los benchmarks JPA: levanta HospitalJPA_PU sobre una base H2 en memoria nueva y arma
+// grafos de hospital de distintos tamaños, como el que persiste Main.
+final class JpaBenchmarks {
+    private static final AtomicInteger BASES = new AtomicInteger();
+
+    private JpaBenchmarks() {
+    }
+
+    // Cada llamada usa una base distinta; la base desaparece al cerrar la fábrica
+    static EntityManagerFactory crearEmf() {
+        Map<String, Object> propiedades = new HashMap<>();
+        propiedades.put("jakarta.persistence.jdbc.url", "jdbc:h2:mem:benchmark" + BASES.incrementAndGet());
+        propiedades.put("hibernate.hbm2ddl.auto", "create");
+        propiedades.put("hibernate.show_sql", "false");
+        propiedades.put("hibernate.format_sql", "false");
+        return Persistence.createEntityManagerFactory("HospitalJPA_PU", propiedades);
+    }
+
+    // Hospital con 'departamentos' departamentos (especialidades rotativas), 5 médicos y 2 salas por
+    // departamento y 'pacientes' pacientes con su historia clínica; uno de cada tres tiene alergias.
+    static Hospital crearHospital(int departamentos, int pacientes) {
+        Hospital hospital = Hospital.builder()
+                .nombre("Hospital Benchmark")
+                .direccion("Av. Siempre Viva 742")
+                .telefono("011-4567-8901")
+                .build();
+
+        EspecialidadMedica[] especialidades = EspecialidadMedica.values();
+        int medico = 0;
+        for (int d = 0; d < departamentos; d++) {
+            EspecialidadMedica especialidad = especialidades[d % especialidades.length];
+            Departamento departamento = Departamento.builder()
+                    .nombre(especialidad.getDescripcion() + " " + d)
+                    .especialidad(especialidad)
+                    .build();
+            // setHospital ya agrega el departamento a la lista del hospital
+            departamento.setHospital(hospital);
+            departamento.crearSala("S-" + d + "-1", "Consultorio");
+            departamento.crearSala("S-" + d + "-2", "Quirófano");
+            for (int m = 0; m < 5; m++, medico++) {
+                departamento.agregarMedico(Medico.builder()
+                        .nombre("Medico" + medico)
+                        .apellido("Benchmark")
+                        .dni(String.valueOf(10_000_000 + medico))
+                        .fechaNacimiento(LocalDate.of(1975, 5, 15))
+                        .tipoSangre(TipoSangre.A_POSITIVO)
+                        .numeroMatricula("MP-" + (100_000 + medico))
+                        .especialidad(especialidad)
+                        .build());
+            }
+        }
+
+        for (int p = 0; p < pacientes; p++) {
+            Paciente paciente = Paciente.builder()
+                    .nombre("Paciente" + p)
+                    .apellido("Benchmark")
+                    .dni(String.valueOf(20_000_000 + p))
+                    .fechaNacimiento(LocalDate.of(1985, 12, 5))
+                    .tipoSangre(TipoSangre.O_POSITIVO)
+                    .telefono("011-1111-1111")
+                    .direccion("Calle Falsa 123")
+                    .build();
+            paciente.setHospital(hospital);
+            HistoriaClinica historia = paciente.getHistoriaClinica();
+            historia.agregarDiagnostico("Control anual");
+            if (p % 3 == 0) {
+                historia.agregarAlergia("Penicilina");
+                historia.agregarAlergia("Polen");
+            }
+        }
+        return hospital;
+    }
+}
@@ -0,0 +1,106 @@
+package benchmarks;
+
+import entidades.Hospital;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Persistencia del grafo completo del hospital por cascada, como en Main, separando las etapas:
+// persist (recorrido de cascadas e ids), flush (los INSERT), persist + commit completo, y merge
+// de un grafo ya persistido y desconectado. Cada iteración usa una base nueva y un grafo nuevo.
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class PersistenciaJpaBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Base {
+        @Param({"4", "16"})
+        int departamentos;
+
+        @Param({"100", "1000", "10000"})
+        int pacientes;
+
+        EntityManagerFactory emf;
+        EntityManager em;
+        Hospital hospital;
+
+        void abrir() {
+            emf = JpaBenchmarks.crearEmf();
+            hospital = JpaBenchmarks.crearHospital(departamentos, pacientes);
+            em = emf.createEntityManager();
+        }
+
+        @TearDown(Level.Iteration)
+        public void cerrar() {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            em.close();
+            emf.close();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class GrafoNuevo extends Base {
+        @Setup(Level.Iteration)
+        public void preparar() {
+            abrir();
+            em.getTransaction().begin();
+        }
+    }
+
+    // El grafo ya pasó por persist: el benchmark solo mide el flush
+    @State(Scope.Benchmark)
+    public static class GrafoPersistido extends Base {
+        @Setup(Level.Iteration)
+        public void preparar() {
+            abrir();
+            em.getTransaction().begin();
+            em.persist(hospital);
+        }
+    }
+
+    // El grafo ya está en la base y desconectado: el benchmark mide el merge en un contexto nuevo
+    @State(Scope.Benchmark)
+    public static class GrafoDesconectado extends Base {
+        @Setup(Level.Iteration)
+        public void preparar() {
+            abrir();
+            em.getTransaction().begin();
+            em.persist(hospital);
+            em.getTransaction().commit();
+            em.close();
+            em = emf.createEntityManager();
+            em.getTransaction().begin();
+        }
+    }
+
+    @Benchmark
+    public Hospital persist(GrafoNuevo estado) {
+        estado.em.persist(estado.hospital);
+        return estado.hospital;
+    }
+
+    @Benchmark
+    public void flush(GrafoPersistido estado) {
+        estado.em.flush();
+    }
+
+    @Benchmark
+    public void persistYCommit(GrafoNuevo estado) {
+        estado.em.persist(estado.hospital);
+        estado.em.getTransaction().commit();
+    }
+
+    @Benchmark
+    public Hospital merge(GrafoDesconectado estado) {
+        Hospital hospital = estado.em.merge(estado.hospital);
+        estado.em.getTransaction().commit();
+        return hospital;
+    }
+}
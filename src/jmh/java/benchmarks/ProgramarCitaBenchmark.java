@@ -0,0 +1,62 @@
+package benchmarks;
+
+import entidades.Cita;
+import org.openjdk.jmh.annotations.*;
+import servicios.CitaException;
+import servicios.CitaManager;
+import servicios.SolicitudCita;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Alta de citas con agendas de distinto tamaño. Cada alta agranda la agenda, asi que no hay estado
+// estable: cada iteración arranca de un manager con 'citasPorMedico' citas por médico y mide un lote
+// de ALTAS_POR_ITERACION altas. El score es el tiempo del lote completo (dividir por el lote = por alta).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 30, batchSize = ProgramarCitaBenchmark.ALTAS_POR_ITERACION)
+@Measurement(iterations = 20, batchSize = ProgramarCitaBenchmark.ALTAS_POR_ITERACION)
+@Fork(1)
+public class ProgramarCitaBenchmark {
+    static final int ALTAS_POR_ITERACION = 10_000;
+    private static final int MEDICOS = 4;
+    private static final int PACIENTES = 100;
+
+    @Param({"0", "1000", "100000"})
+    private int citasPorMedico;
+
+    private DatosBenchmark datos;
+    private CitaManager manager;
+    private int siguiente;
+
+    // Las entidades guardan sus citas, asi que tambien se recrean para no acumular entre iteraciones
+    @Setup(Level.Iteration)
+    public void preparar() {
+        datos = new DatosBenchmark(MEDICOS, PACIENTES);
+        manager = new CitaManager();
+        List<SolicitudCita> existentes = new ArrayList<>(MEDICOS * citasPorMedico);
+        for (int turno = 0; turno < citasPorMedico; turno++) {
+            for (int medico = 0; medico < MEDICOS; medico++) {
+                existentes.add(SolicitudCita.builder()
+                        .paciente(datos.pacientes.get((turno * MEDICOS + medico) % PACIENTES))
+                        .medico(datos.medicos.get(medico))
+                        .sala(datos.salas.get(medico))
+                        .fechaHora(datos.turno(turno))
+                        .costo(DatosBenchmark.COSTO)
+                        .build());
+            }
+        }
+        manager.programarCitas(existentes);
+        siguiente = 0;
+    }
+
+    @Benchmark
+    public Cita programarCita() throws CitaException {
+        int alta = siguiente++;
+        int medico = alta % MEDICOS;
+        return manager.programarCita(datos.pacientes.get(alta % PACIENTES), datos.medicos.get(medico),
+                datos.salas.get(medico), datos.turno(citasPorMedico + alta / MEDICOS), DatosBenchmark.COSTO);
+    }
+}
@@ -1,10 +1,19 @@
 import entidades.*;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
-import jakarta.persistence.Persistence;
 import jakarta.persistence.TypedQuery;
 import servicios.CitaException;
 import servicios.CitaManager;
+import servicios.EstadisticasHospital;
+import servicios.EventoTransaccionJpa;
+import servicios.FilaAgenda;
+import servicios.FilaPlantel;
+import servicios.LecturasHospital;
+import servicios.MetricasPool;
+import servicios.PerfilPersistencia;
+import servicios.ReporteEstadisticasJpa;
+import servicios.ReportesHospital;
+import servicios.ResumenPaciente;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -20,7 +29,9 @@ public class Main {
     public static void main(String[] args) {
         System.out.println("===== SISTEMA DE GESTIÓN HOSPITALARIA =====\n");
 
-        EntityManagerFactory emf = Persistence.createEntityManagerFactory("HospitalJPA_PU");
+        // -Dhospital.perfil=medicion apaga el SQL por consola y junta estadísticas de Hibernate
+        PerfilPersistencia perfil = PerfilPersistencia.desdeSistema();
+        EntityManagerFactory emf = perfil.crearEmf();
         EntityManager em = emf.createEntityManager();
 
         try {
@@ -38,22 +49,31 @@ public class Main {
             programarCitas(citaManager, medicos, pacientes, hospital);
 
             // 5. Persistir el grafo completo (Aggregate Root)
+            // Evento JFR de la transacción, para verla junto a los eventos JDBC y de GC de la grabación
+            EventoTransaccionJpa transaccion = new EventoTransaccionJpa("Persistir hospital");
             em.getTransaction().begin();
             try {
                 em.persist(hospital);
                 em.getTransaction().commit();
+                transaccion.setEntidades(contarEntidades(hospital));
+                transaccion.confirmada();
             } catch (Exception txEx) {
+                transaccion.error(txEx);
                 if (em.getTransaction().isActive()) {
                     em.getTransaction().rollback();
                 }
                 throw txEx;
+            } finally {
+                transaccion.terminar();
             }
 
-            // 6. Mostrar información del sistema
-            mostrarInformacionCompleta(hospital, citaManager);
+            // 6. Mostrar información del sistema (los reportes leen de la base con grafos de entidad)
+            ReportesHospital reportes = new ReportesHospital(emf);
+            mostrarInformacionCompleta(hospital, citaManager, reportes);
 
             // 7. Ejecutar consultas JPQL
-            ejecutarConsultasJPQL(em, hospital);
+            EstadisticasHospital estadisticas = new EstadisticasHospital(emf);
+            ejecutarConsultasJPQL(em, hospital, estadisticas, reportes, new LecturasHospital(emf));
 
             // 8. Probar persistencia de datos
             probarPersistencia(citaManager, pacientes, medicos, hospital);
@@ -62,7 +82,16 @@ public class Main {
             ejecutarPruebasValidacion(citaManager, medicos, pacientes, hospital);
 
             // 10. Mostrar estadísticas finales
-            mostrarEstadisticasFinales(hospital);
+            mostrarEstadisticasFinales(estadisticas, hospital.getId());
+
+            if (perfil == PerfilPersistencia.MEDICION) {
+                System.out.println("\n===== ESTADÍSTICAS DE HIBERNATE =====");
+                ReporteEstadisticasJpa.de(emf).imprimir(System.out);
+                MetricasPool pool = MetricasPool.de(emf);
+                if (pool != null) {
+                    System.out.println("\nPool de conexiones: " + pool.tomarInstantanea());
+                }
+            }
 
             System.out.println("\n===== SISTEMA EJECUTADO EXITOSAMENTE =====");
 
@@ -79,6 +108,15 @@ public class Main {
         }
     }
 
+    // Hospital, departamentos, salas, médicos y pacientes que persist alcanza por cascada
+    private static long contarEntidades(Hospital hospital) {
+        long entidades = 1 + hospital.getDepartamentos().size() + hospital.getPacientes().size();
+        for (Departamento departamento : hospital.getDepartamentos()) {
+            entidades += departamento.getSalas().size() + departamento.getMedicos().size();
+        }
+        return entidades;
+    }
+
     // ===== MÉTODOS DE INICIALIZACIÓN =====
 
     private static Hospital inicializarHospital() {
@@ -326,10 +364,10 @@ public class Main {
 
     // ===== MÉTODOS DE VISUALIZACIÓN =====
 
-    private static void mostrarInformacionCompleta(Hospital hospital, CitaManager citaManager) {
+    private static void mostrarInformacionCompleta(Hospital hospital, CitaManager citaManager, ReportesHospital reportes) {
         mostrarInformacionHospital(hospital);
-        mostrarDepartamentosYPersonal(hospital);
-        mostrarPacientesEHistorias(hospital);
+        mostrarDepartamentosYPersonal(reportes, hospital.getId());
+        mostrarPacientesEHistorias(reportes, hospital.getId());
         mostrarCitasProgramadas(hospital, citaManager);
     }
 
@@ -341,9 +379,9 @@ public class Main {
         System.out.println();
     }
 
-    private static void mostrarDepartamentosYPersonal(Hospital hospital) {
+    private static void mostrarDepartamentosYPersonal(ReportesHospital reportes, Long hospitalId) {
         System.out.println("===== DEPARTAMENTOS Y PERSONAL =====");
-        for (Departamento dep : hospital.getDepartamentos()) {
+        for (Departamento dep : reportes.departamentosConPersonal(hospitalId)) {
             System.out.println(dep);
 
             System.out.println("  Médicos (" + dep.getMedicos().size() + "):");
@@ -359,9 +397,9 @@ public class Main {
         }
     }
 
-    private static void mostrarPacientesEHistorias(Hospital hospital) {
+    private static void mostrarPacientesEHistorias(ReportesHospital reportes, Long hospitalId) {
         System.out.println("===== PACIENTES E HISTORIAS CLÍNICAS =====");
-        for (Paciente paciente : hospital.getPacientes()) {
+        for (Paciente paciente : reportes.pacientesConHistoria(hospitalId)) {
             System.out.println(paciente);
             HistoriaClinica historia = paciente.getHistoriaClinica();
             System.out.println("  Historia: " + historia.getNumeroHistoria() + " | Edad: " + paciente.getEdad() + " años");
@@ -400,17 +438,22 @@ public class Main {
 
     // ===== CONSULTAS JPQL =====
 
-    private static void ejecutarConsultasJPQL(EntityManager em, Hospital hospital) {
+    private static void ejecutarConsultasJPQL(EntityManager em, Hospital hospital, EstadisticasHospital estadisticas,
+                                              ReportesHospital reportes, LecturasHospital lecturas) {
         System.out.println("===== CONSULTAS JPQL =====");
 
         // HU-002: Consultar Información de Hospital
         consultarInformacionHospital(em, hospital);
 
         // HU-025: Generar Estadísticas por Especialidad
-        generarEstadisticasPorEspecialidad(em);
+        generarEstadisticasPorEspecialidad(estadisticas, hospital.getId());
 
         // HU-027: Consultar Pacientes con Alergias
-        consultarPacientesConAlergias(em);
+        consultarPacientesConAlergias(reportes);
+
+        // Listados con proyecciones (records), sin cargar entidades
+        consultarPlantelYAgendas(lecturas, hospital.getId());
+        consultarResumenPacientes(lecturas, hospital.getId());
 
         System.out.println();
     }
@@ -437,45 +480,68 @@ public class Main {
         }
     }
 
-    private static void generarEstadisticasPorEspecialidad(EntityManager em) {
+    private static void generarEstadisticasPorEspecialidad(EstadisticasHospital estadisticas, Long hospitalId) {
         System.out.println("--- HU-025: Generar Estadísticas por Especialidad ---");
 
         try {
-            // Obtener todas las especialidades
-            EspecialidadMedica[] especialidades = EspecialidadMedica.values();
+            // Un solo GROUP BY en vez de un COUNT por especialidad
+            Map<EspecialidadMedica, Long> medicosPorEspecialidad = estadisticas.medicosPorEspecialidad(hospitalId);
 
             System.out.println("Médicos por Especialidad:");
             System.out.println("Especialidad\t\tCantidad");
             System.out.println("----------------------------------------");
 
-            for (EspecialidadMedica especialidad : especialidades) {
-                TypedQuery<Long> query = em.createQuery(
-                        "SELECT COUNT(m) FROM Medico m WHERE m.especialidad = :esp",
-                        Long.class);
-                query.setParameter("esp", especialidad);
-                Long count = query.getSingleResult();
+            medicosPorEspecialidad.forEach((especialidad, count) ->
+                    System.out.printf("%-20s\t%d%n", especialidad.getDescripcion(), count));
+
+        } catch (Exception e) {
+            System.err.println("Error en estadísticas por especialidad: " + e.getMessage());
+        }
+    }
+
+    private static void consultarPlantelYAgendas(LecturasHospital lecturas, Long hospitalId) {
+        System.out.println("--- Plantel y agenda del próximo año por médico ---");
 
-                if (count > 0) {
-                    System.out.printf("%-20s\t%d%n", especialidad.getDescripcion(), count);
+        try {
+            LocalDateTime desde = LocalDateTime.now();
+            LocalDateTime hasta = desde.plusYears(1);
+            for (FilaPlantel medico : lecturas.plantel(hospitalId)) {
+                System.out.printf("%-15s %-12s %s %s%n", medico.departamento(), medico.matricula(),
+                        medico.nombre(), medico.apellido());
+                for (FilaAgenda fila : lecturas.agendaMedico(medico.medicoId(), desde, hasta)) {
+                    System.out.printf("    %s  %-10s %-12s %s ($%s)%n", fila.fechaHora(), fila.sala(),
+                            fila.estado().getDescripcion(), fila.paciente(), fila.costo());
                 }
             }
+            System.out.println();
 
         } catch (Exception e) {
-            System.err.println("Error en estadísticas por especialidad: " + e.getMessage());
+            System.err.println("Error en consulta de plantel y agendas: " + e.getMessage());
         }
     }
 
-    private static void consultarPacientesConAlergias(EntityManager em) {
+    private static void consultarResumenPacientes(LecturasHospital lecturas, Long hospitalId) {
+        System.out.println("--- Resumen de pacientes ---");
+
+        try {
+            System.out.printf("%-10s %-22s %-6s %-20s %6s %9s%n", "DNI", "Paciente", "Sangre", "Historia", "Citas", "Alergias");
+            for (ResumenPaciente paciente : lecturas.resumenPacientes(hospitalId)) {
+                System.out.printf("%-10s %-22s %-6s %-20s %6d %9d%n", paciente.dni(),
+                        paciente.apellido() + ", " + paciente.nombre(), paciente.tipoSangre().getDescripcion(),
+                        paciente.numeroHistoria(), paciente.citas(), paciente.alergias());
+            }
+
+        } catch (Exception e) {
+            System.err.println("Error en resumen de pacientes: " + e.getMessage());
+        }
+    }
+
+    private static void consultarPacientesConAlergias(ReportesHospital reportes) {
         System.out.println("--- HU-027: Consultar Pacientes con Alergias ---");
 
         try {
-            TypedQuery<Paciente> query = em.createQuery(
-                    "SELECT DISTINCT p FROM Paciente p " +
-                            "JOIN p.historiaClinica h " +
-                            "WHERE SIZE(h.alergias) > 0",
-                    Paciente.class
-            );
-            List<Paciente> pacientesConAlergias = query.getResultList();
+            // Pacientes con historia y alergias en 2 consultas, en vez de 2 por paciente
+            List<Paciente> pacientesConAlergias = reportes.pacientesConAlergias();
 
             System.out.println("Pacientes con Alergias Registradas:");
             System.out.println("Total encontrados: " + pacientesConAlergias.size());
@@ -625,51 +691,49 @@ public class Main {
 
     // ===== ESTADÍSTICAS FINALES =====
 
-    private static void mostrarEstadisticasFinales(Hospital hospital) {
+    private static void mostrarEstadisticasFinales(EstadisticasHospital estadisticas, Long hospitalId) {
         System.out.println("===== ESTADÍSTICAS FINALES =====");
 
-        // Contadores generales
-        int totalDepartamentos = hospital.getDepartamentos().size();
-        int totalPacientes = hospital.getPacientes().size();
-        int totalMedicos = hospital.getDepartamentos().stream()
-                .mapToInt(dep -> dep.getMedicos().size())
-                .sum();
-        int totalSalas = hospital.getDepartamentos().stream()
-                .mapToInt(dep -> dep.getSalas().size())
-                .sum();
-
-        System.out.println("Departamentos: " + totalDepartamentos);
-        System.out.println("Médicos: " + totalMedicos);
-        System.out.println("Salas: " + totalSalas);
-        System.out.println("Pacientes: " + totalPacientes);
+        // Conteos de la base; si nada cambió desde HU-025 salen de la caché de consultas
+        EstadisticasHospital.Panel panel = estadisticas.tomarPanel(hospitalId);
+
+        System.out.println("Departamentos: " + panel.getDepartamentos().size());
+        System.out.println("Médicos: " + panel.getTotalMedicos());
+        System.out.println("Salas: " + panel.getTotalSalas());
+        System.out.println("Pacientes: " + panel.getTotalPacientes());
 
         // Distribución por tipo de sangre
-        mostrarDistribucionTipoSangre(hospital);
+        mostrarDistribucionTipoSangre(panel);
 
         // Distribución por especialidad
-        mostrarDistribucionEspecialidades(hospital);
+        mostrarDistribucionEspecialidades(panel);
+
+        // Citas por estado
+        mostrarCitasPorEstado(panel);
     }
 
-    private static void mostrarDistribucionTipoSangre(Hospital hospital) {
+    private static void mostrarDistribucionTipoSangre(EstadisticasHospital.Panel panel) {
         System.out.println("\nDistribución por tipo de sangre:");
-        Map<TipoSangre, Integer> distribucion = new HashMap<>();
-
-        for (Paciente paciente : hospital.getPacientes()) {
-            TipoSangre tipo = paciente.getTipoSangre();
-            distribucion.put(tipo, distribucion.getOrDefault(tipo, 0) + 1);
-        }
-
-        distribucion.entrySet().stream()
-                .sorted(Map.Entry.<TipoSangre, Integer>comparingByValue().reversed())
+        panel.getPacientesPorTipoSangre().entrySet().stream()
+                .sorted(Map.Entry.<TipoSangre, Long>comparingByValue().reversed())
                 .forEach(entry -> System.out.println("  " + entry.getKey().getDescripcion() + ": " + entry.getValue()));
     }
 
-    private static void mostrarDistribucionEspecialidades(Hospital hospital) {
+    private static void mostrarDistribucionEspecialidades(EstadisticasHospital.Panel panel) {
         System.out.println("\nDistribución por especialidad:");
-        for (Departamento dep : hospital.getDepartamentos()) {
+        for (EstadisticasHospital.ResumenDepartamento dep : panel.getDepartamentos()) {
             System.out.println("  " + dep.getEspecialidad().getDescripcion() + ": " +
-                    dep.getMedicos().size() + " médicos, " +
-                    dep.getSalas().size() + " salas");
+                    dep.getMedicos() + " médicos, " +
+                    dep.getSalas() + " salas");
+        }
+    }
+
+    private static void mostrarCitasPorEstado(EstadisticasHospital.Panel panel) {
+        System.out.println("\nCitas por estado:");
+        if (panel.getCitasPorEstado().isEmpty()) {
+            System.out.println("  (no hay citas en la base)");
         }
+        panel.getCitasPorEstado().forEach((estado, cantidad) ->
+                System.out.println("  " + estado.getDescripcion() + ": " + cantidad));
     }
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ package entidades;
 import jakarta.persistence.*;
 import lombok.*;
 import servicios.CitaException;
+import servicios.MotivoRechazo;
 
 import java.io.Serializable;
 import java.math.BigDecimal;
@@ -11,7 +12,13 @@ import java.util.Map;
 import java.util.Objects;
 
 @Entity
-@Table(name = "CITAS")
+// Índices para los listados por keyset de CitaManagerJpa: recurso, fecha y hora, id
+@Table(name = "CITAS", indexes = {
+        @Index(name = "IDX_CITAS_MEDICO_FECHA", columnList = "medico_id, fecha_hora, id"),
+        @Index(name = "IDX_CITAS_PACIENTE_FECHA", columnList = "paciente_id, fecha_hora, id"),
+        @Index(name = "IDX_CITAS_SALA_FECHA", columnList = "sala_id, fecha_hora, id"),
+        @Index(name = "IDX_CITAS_FECHA", columnList = "fecha_hora, id")
+})
 @Getter
 @ToString(exclude = {"paciente", "medico", "sala"})
 @NoArgsConstructor
@@ -19,7 +26,8 @@ import java.util.Objects;
 public class Cita implements Serializable {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "citas_seq")
+    @SequenceGenerator(name = "citas_seq", sequenceName = "CITAS_SEQ", allocationSize = 50)
     private Long id;
 
     @Setter(AccessLevel.NONE)
@@ -145,7 +153,8 @@ public class Cita implements Serializable {
                                          Map<String, Sala> salas) throws CitaException {
             String[] values = csvString.split(",");
             if (values.length != 7) {
-                throw new CitaException("Formato de CSV inválido para Cita: " + csvString);
+                throw new CitaException(MotivoRechazo.FORMATO_INVALIDO,
+                        "Formato de CSV inválido para Cita: " + csvString);
             }
 
             String dniPaciente = values[0];
@@ -160,19 +169,22 @@ public class Cita implements Serializable {
             Medico medico = medicos.get(dniMedico);
             Sala sala = salas.get(numeroSala);
 
-            if (paciente == null) throw new CitaException("Paciente no encontrado: " + dniPaciente);
-            if (medico == null) throw new CitaException("Médico no encontrado: " + dniMedico);
-            if (sala == null) throw new CitaException("Sala no encontrada: " + numeroSala);
+            if (paciente == null) throw new CitaException(MotivoRechazo.NO_ENCONTRADA, "Paciente no encontrado: " + dniPaciente);
+            if (medico == null) throw new CitaException(MotivoRechazo.NO_ENCONTRADA, "Médico no encontrado: " + dniMedico);
+            if (sala == null) throw new CitaException(MotivoRechazo.NO_ENCONTRADA, "Sala no encontrada: " + numeroSala);
 
             //Validaciones igual que en programarCita
             if (fechaHora.isBefore(LocalDateTime.now())) {
-                throw new CitaException("No se puede cargar una cita con fecha en el pasado: " + fechaHora);
+                throw new CitaException(MotivoRechazo.FECHA_PASADA,
+                        "No se puede cargar una cita con fecha en el pasado: " + fechaHora);
             }
             if (costo.compareTo(BigDecimal.ZERO) <= 0) {
-                throw new CitaException("El costo debe ser mayor que cero. Valor: " + costo);
+                throw new CitaException(MotivoRechazo.COSTO_INVALIDO,
+                        "El costo debe ser mayor que cero. Valor: " + costo);
             }
             if (!medico.getEspecialidad().equals(sala.getDepartamento().getEspecialidad())) {
-                throw new CitaException("La especialidad del médico no coincide con el departamento de la sala.");
+                throw new CitaException(MotivoRechazo.ESPECIALIDAD_INCOMPATIBLE,
+                        "La especialidad del médico no coincide con el departamento de la sala.");
             }
 
             // Construcción segura de la cita
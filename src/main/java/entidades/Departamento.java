@@ -2,6 +2,10 @@ package entidades;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -11,12 +15,21 @@ import java.util.Objects;
 
 @Entity
 @Table(name = "DEPARTAMENTOS")
+// Reporte de personal: médicos en el mismo SELECT; las salas no, son otra List y Hibernate no junta
+// dos bolsas en un fetch (MultipleBagFetchException). Esas llegan por SUBSELECT.
+@NamedEntityGraph(name = Departamento.GRAFO_PERSONAL, attributeNodes = @NamedAttributeNode("medicos"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Getter
 @ToString(exclude = {"hospital", "medicos", "salas"})
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
 
 public class Departamento implements Serializable {
+    public static final String GRAFO_PERSONAL = "Departamento.personal";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "departamentos_seq")
+    @SequenceGenerator(name = "departamentos_seq", sequenceName = "DEPARTAMENTOS_SEQ", allocationSize = 50)
     private Long id;
 
     @Setter(AccessLevel.NONE)
@@ -33,10 +46,14 @@ public class Departamento implements Serializable {
     private Hospital hospital;
 
     @Setter(AccessLevel.NONE)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @OneToMany(mappedBy = "departamento", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private List<Medico> medicos;
 
     @Setter(AccessLevel.NONE)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+    // Al tocar las salas de un departamento se cargan las de todos los que trajo la misma consulta
+    @Fetch(FetchMode.SUBSELECT)
     @OneToMany(mappedBy = "departamento", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private List<Sala> salas;
 
@@ -2,6 +2,8 @@ package entidades;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 
 import java.io.Serializable;
 import java.time.LocalDateTime;
@@ -19,7 +21,8 @@ import java.util.Objects;
 public class HistoriaClinica implements Serializable {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "historias_clinicas_seq")
+    @SequenceGenerator(name = "historias_clinicas_seq", sequenceName = "HISTORIAS_CLINICAS_SEQ", allocationSize = 50)
     @Column(name = "id")
     private Long id;
 
@@ -36,17 +39,22 @@ public class HistoriaClinica implements Serializable {
     @Column(name = "fecha_creacion", nullable = false)
     private LocalDateTime fechaCreacion;
 
+    // Las tres listas por SUBSELECT: recorrer las historias de un reporte cuesta una consulta por lista,
+    // no una por historia. Juntas en un JOIN FETCH serían un producto cartesiano (y tres bolsas)
     @ElementCollection
+    @Fetch(FetchMode.SUBSELECT)
     @CollectionTable(name = "hc_diagnostico", joinColumns = @JoinColumn(name = "historia_id"))
     @Column(name = "diagnostico", nullable = false, length = 500)
     private final List<String> diagnosticos = new ArrayList<>();
 
     @ElementCollection
+    @Fetch(FetchMode.SUBSELECT)
     @CollectionTable(name = "hc_tratamiento", joinColumns = @JoinColumn(name = "historia_id"))
     @Column(name = "tratamiento", nullable = false, length = 500)
     private final List<String> tratamientos = new ArrayList<>();
 
     @ElementCollection
+    @Fetch(FetchMode.SUBSELECT)
     @CollectionTable(name = "hc_alergia", joinColumns = @JoinColumn(name = "historia_id"))
     @Column(name = "alergia", nullable = false, length = 200)
     private final List<String> alergias = new ArrayList<>();
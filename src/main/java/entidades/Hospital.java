@@ -2,18 +2,23 @@ package entidades;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.io.Serializable;
 import java.util.*;
 
 @Entity
 @Table(name = "HOSPITAL")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Getter
 @ToString(exclude = {"departamentos", "pacientes"})
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 public class Hospital implements Serializable {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "hospital_seq")
+    @SequenceGenerator(name = "hospital_seq", sequenceName = "HOSPITAL_SEQ", allocationSize = 50)
     @Column(name = "idHosp")
     private Long id;
 
@@ -30,6 +35,7 @@ public class Hospital implements Serializable {
     private String telefono;
 
     @Setter(AccessLevel.NONE)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @OneToMany(mappedBy = "hospital", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private List<Departamento> departamentos = new ArrayList<>();
 
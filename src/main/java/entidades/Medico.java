@@ -3,6 +3,8 @@ package entidades;
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.SuperBuilder;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.io.Serializable;
 import java.time.LocalDate;
@@ -13,6 +15,8 @@ import java.util.Objects;
 
 @Entity
 @Table (name = "MEDICOS")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Getter
 @ToString(callSuper = true, exclude = {"departamento", "citas"})
 @SuperBuilder
@@ -20,7 +24,8 @@ import java.util.Objects;
 public class Medico extends Persona implements Serializable {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "medicos_seq")
+    @SequenceGenerator(name = "medicos_seq", sequenceName = "MEDICOS_SEQ", allocationSize = 50)
     private Long id;
 
     @Setter(AccessLevel.NONE)
@@ -73,6 +78,10 @@ public class Medico extends Persona implements Serializable {
         this.citas.add(cita);
     }
 
+    public void removeCita(Cita cita) {
+        this.citas.remove(cita);
+    }
+
     public List<Cita> getCitas() {
         return Collections.unmodifiableList(new ArrayList<>(citas));
     }
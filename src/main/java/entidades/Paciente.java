@@ -9,18 +9,25 @@ import java.util.*;
 
 @Entity
 @Table(name = "PACIENTES")
+// historiaClinica es el lado inverso del OneToOne: no hay clave foránea para armar un proxy. Es EAGER
+// para que el paciente desasociado siempre la tenga (con LAZY el enhancement la dejaba sin cargar).
+// Si no viene en el JOIN se busca con un SELECT por paciente: las consultas que devuelven pacientes la
+// traen con JOIN FETCH (CitaManagerJpa) o con este grafo (reportes).
+@NamedEntityGraph(name = Paciente.GRAFO_HISTORIA, attributeNodes = @NamedAttributeNode("historiaClinica"))
 @Getter
 @ToString(callSuper = true, exclude = {"hospital", "citas"})
 @SuperBuilder
 @NoArgsConstructor
 public class Paciente extends Persona implements Serializable {
+    public static final String GRAFO_HISTORIA = "Paciente.historia";
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pacientes_seq")
+    @SequenceGenerator(name = "pacientes_seq", sequenceName = "PACIENTES_SEQ", allocationSize = 50)
     private Long id;
 
     @Setter(AccessLevel.NONE)
-    @OneToOne(mappedBy = "paciente", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
+    @OneToOne(mappedBy = "paciente", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
     private HistoriaClinica historiaClinica;
 
     @Setter(AccessLevel.NONE)
@@ -82,6 +89,10 @@ public class Paciente extends Persona implements Serializable {
         this.citas.add(cita);
     }
 
+    public void removeCita(Cita cita) {
+        this.citas.remove(cita);
+    }
+
     public List<Cita> getCitas() {
 
         return Collections.unmodifiableList(new ArrayList<>(citas));
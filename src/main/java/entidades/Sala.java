@@ -2,6 +2,8 @@ package entidades;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -11,13 +13,16 @@ import java.util.Objects;
 
 @Entity
 @Table(name="SALAS")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Getter
 @ToString(exclude = {"citas", "departamento"}) // evitamos recursividad
 @NoArgsConstructor
 public class Sala implements Serializable {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "salas_seq")
+    @SequenceGenerator(name = "salas_seq", sequenceName = "SALAS_SEQ", allocationSize = 50)
     private Long id;
 
     @Setter(AccessLevel.NONE)
@@ -48,6 +53,10 @@ public class Sala implements Serializable {
         this.citas.add(cita);
     }
 
+    public void removeCita(Cita cita) {
+        this.citas.remove(cita);
+    }
+
     public List<Cita> getCitas() {
         return Collections.unmodifiableList(new ArrayList<>(citas));
     }
@@ -0,0 +1,56 @@
+package herramientas;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import servicios.CargadorCitasMasivo;
+import servicios.RechazoImportacion;
+import servicios.ReporteImportacion;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Línea de comandos de la carga masiva (servicios.CargadorCitasMasivo):
+//   <archivo.csv> <jdbc-url|-> [filas por commit] [tamaño de batch]
+// Con "-" usa la base configurada en HospitalJPA_PU. Desde Gradle: gradle cargarCitas --args="..."
+// Agrega a lo que ya hay: los solapamientos se revisan solo dentro del archivo, no contra la base.
+public class CargarCitas {
+    private static final int RECHAZOS_MOSTRADOS = 20;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2 || args.length > 4) {
+            System.err.println("Uso: <archivo.csv> <jdbc-url|-> [filas por commit] [tamaño de batch]");
+            System.exit(1);
+        }
+
+        Map<String, Object> propiedades = new HashMap<>();
+        propiedades.put("hibernate.show_sql", "false");
+        propiedades.put("hibernate.format_sql", "false");
+        if (!args[1].equals("-")) {
+            propiedades.put("jakarta.persistence.jdbc.url", args[1]);
+        }
+        EntityManagerFactory emf = Persistence.createEntityManagerFactory("HospitalJPA_PU", propiedades);
+        try {
+            CargadorCitasMasivo cargador = CargadorCitasMasivo.builder()
+                    .emf(emf)
+                    .filasPorCommit(args.length > 2 ? Integer.parseInt(args[2]) : 0)
+                    .tamanioBatch(args.length > 3 ? Integer.parseInt(args[3]) : 0)
+                    .build();
+            CargadorCitasMasivo.Resultado resultado = cargador.cargar(Path.of(args[0]));
+
+            ReporteImportacion reporte = resultado.getReporte();
+            System.out.printf("Leídas %d filas: %d cargadas, %d rechazadas en %.1f s (%.0f filas/s)%n",
+                    reporte.getFilasLeidas(), reporte.getFilasAceptadas(), reporte.getFilasRechazadas(),
+                    resultado.getDuracionNanos() / 1e9, resultado.getFilasPorSegundo());
+            System.out.printf("Claves buscadas: %d pacientes, %d médicos, %d salas%n",
+                    resultado.getPacientesBuscados(), resultado.getMedicosBuscados(), resultado.getSalasBuscadas());
+            List<RechazoImportacion> rechazos = reporte.getRechazos();
+            for (RechazoImportacion rechazo : rechazos.subList(0, Math.min(RECHAZOS_MOSTRADOS, rechazos.size()))) {
+                System.err.println("Línea " + rechazo.getNumeroLinea() + " - " + rechazo.getMotivo());
+            }
+        } finally {
+            emf.close();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package herramientas;
+
+import entidades.Cita;
+import entidades.Hospital;
+import entidades.Medico;
+import entidades.Paciente;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+// Adonde van los datos de GeneradorHospital. Primero llega la estructura del hospital (departamentos,
+// salas y médicos ya enlazados) y despues cada paciente con sus citas. Los pacientes no vienen
+// agregados al hospital: enlazarlos es cosa del destino, asi el generador no los acumula.
+public interface DestinoGenerador extends Closeable {
+    void hospital(Hospital hospital, List<Medico> medicos) throws IOException;
+
+    void paciente(Paciente paciente, List<Cita> citas) throws IOException;
+}
@@ -0,0 +1,69 @@
+package herramientas;
+
+import entidades.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+// Escribe los datos generados como CSV en un directorio: salas.csv, medicos.csv, pacientes.csv y
+// citas.csv. citas.csv tiene el formato de Cita.toCsvString, el mismo que lee CitaManager.cargarCitas.
+// Las listas de la historia clínica van separadas por ';'.
+public class DestinoGeneradorCsv implements DestinoGenerador {
+    private final BufferedWriter salas;
+    private final BufferedWriter medicos;
+    private final BufferedWriter pacientes;
+    private final BufferedWriter citas;
+
+    public DestinoGeneradorCsv(Path directorio) throws IOException {
+        Files.createDirectories(directorio);
+        this.salas = Files.newBufferedWriter(directorio.resolve("salas.csv"));
+        this.medicos = Files.newBufferedWriter(directorio.resolve("medicos.csv"));
+        this.pacientes = Files.newBufferedWriter(directorio.resolve("pacientes.csv"));
+        this.citas = Files.newBufferedWriter(directorio.resolve("citas.csv"));
+    }
+
+    @Override
+    public void hospital(Hospital hospital, List<Medico> listaMedicos) throws IOException {
+        for (Departamento departamento : hospital.getDepartamentos()) {
+            for (Sala sala : departamento.getSalas()) {
+                linea(salas, sala.getNumero(), sala.getTipo(), departamento.getNombre(),
+                        departamento.getEspecialidad().name());
+            }
+        }
+        for (Medico medico : listaMedicos) {
+            linea(medicos, medico.getDni(), medico.getNombre(), medico.getApellido(),
+                    medico.getFechaNacimiento().toString(), medico.getTipoSangre().name(),
+                    medico.getMatricula().getNumero(), medico.getEspecialidad().name(),
+                    medico.getDepartamento().getNombre());
+        }
+    }
+
+    @Override
+    public void paciente(Paciente paciente, List<Cita> citasPaciente) throws IOException {
+        HistoriaClinica historia = paciente.getHistoriaClinica();
+        linea(pacientes, paciente.getDni(), paciente.getNombre(), paciente.getApellido(),
+                paciente.getFechaNacimiento().toString(), paciente.getTipoSangre().name(),
+                paciente.getTelefono(), paciente.getDireccion(),
+                String.join(";", historia.getDiagnosticos()), String.join(";", historia.getTratamientos()),
+                String.join(";", historia.getAlergias()));
+        for (Cita cita : citasPaciente) {
+            citas.write(cita.toCsvString());
+            citas.newLine();
+        }
+    }
+
+    private static void linea(BufferedWriter writer, String... campos) throws IOException {
+        writer.write(String.join(",", campos));
+        writer.newLine();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try (salas; medicos; pacientes; citas) {
+            // cierra los cuatro archivos aunque alguno falle
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package herramientas;
+
+import entidades.*;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+import java.util.List;
+
+// Persiste los datos generados por JPA en transacciones de 'tamanioLote' pacientes (con sus citas).
+// Despues de cada lote se vacía el contexto de persistencia, asi la memoria no crece con la cantidad
+// de pacientes. Médicos y salas se referencian por id con getReference, sin volver a cargarlos.
+public class DestinoGeneradorJpa implements DestinoGenerador {
+    public static final int TAMANIO_LOTE_POR_DEFECTO = 500;
+
+    private final EntityManager em;
+    private final int tamanioLote;
+    private Long idHospital;
+    private Hospital hospital;
+    private int enLote;
+
+    public DestinoGeneradorJpa(EntityManagerFactory emf) {
+        this(emf, TAMANIO_LOTE_POR_DEFECTO);
+    }
+
+    public DestinoGeneradorJpa(EntityManagerFactory emf, int tamanioLote) {
+        if (tamanioLote <= 0) {
+            throw new IllegalArgumentException("El tamaño de lote debe ser mayor que cero");
+        }
+        this.em = emf.createEntityManager();
+        this.tamanioLote = tamanioLote;
+    }
+
+    @Override
+    public void hospital(Hospital nuevo, List<Medico> medicos) {
+        em.getTransaction().begin();
+        try {
+            // Departamentos, salas y médicos entran por cascada
+            em.persist(nuevo);
+            em.getTransaction().commit();
+        } catch (RuntimeException e) {
+            rollback();
+            throw e;
+        }
+        idHospital = nuevo.getId();
+        em.clear();
+        em.getTransaction().begin();
+    }
+
+    @Override
+    public void paciente(Paciente paciente, List<Cita> citas) {
+        try {
+            if (hospital == null) {
+                // Con la colección de pacientes sin inicializar, setHospital no la carga: Hibernate
+                // encola el agregado porque es el lado inverso de la relación
+                hospital = em.find(Hospital.class, idHospital);
+            }
+            paciente.setHospital(hospital);
+            em.persist(paciente);
+            for (Cita cita : citas) {
+                em.persist(Cita.builder()
+                        .paciente(paciente)
+                        .medico(em.getReference(Medico.class, cita.getMedico().getId()))
+                        .sala(em.getReference(Sala.class, cita.getSala().getId()))
+                        .fechaHora(cita.getFechaHora())
+                        .costo(cita.getCosto())
+                        .estado(cita.getEstado())
+                        .observaciones(cita.getObservaciones())
+                        .build());
+            }
+
+            if (++enLote == tamanioLote) {
+                em.getTransaction().commit();
+                em.clear();
+                hospital = null;
+                enLote = 0;
+                em.getTransaction().begin();
+            }
+        } catch (RuntimeException e) {
+            rollback();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().commit();
+            }
+        } finally {
+            em.close();
+        }
+    }
+
+    private void rollback() {
+        if (em.getTransaction().isActive()) {
+            em.getTransaction().rollback();
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package herramientas;
+
+import entidades.*;
+import lombok.Builder;
+import lombok.Getter;
+import servicios.CitaManager;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+
+// Generador de datos sintéticos para pruebas de carga. Con la misma semilla y los mismos tamaños
+// produce siempre el mismo hospital, los mismos pacientes y las mismas citas.
+// Solo la estructura (departamentos, salas y médicos) queda en memoria: los pacientes se generan y se
+// entregan al destino de a uno, con sus citas, asi se pueden armar millones sin guardarlos.
+// Las citas no se pisan: cada médico tiene su propia secuencia de turnos y dentro de un departamento
+// los médicos que comparten sala la usan en turnos distintos.
+@Getter
+public class GeneradorHospital {
+    private static final TipoSangre[] TIPOS_SANGRE = {
+            TipoSangre.O_POSITIVO, TipoSangre.A_POSITIVO, TipoSangre.B_POSITIVO, TipoSangre.AB_POSITIVO,
+            TipoSangre.O_NEGATIVO, TipoSangre.A_NEGATIVO, TipoSangre.B_NEGATIVO, TipoSangre.AB_NEGATIVO};
+    // Frecuencia aproximada de cada grupo en la población, en milésimos (mismo orden que TIPOS_SANGRE)
+    private static final int[] FRECUENCIA_SANGRE = {450, 300, 90, 30, 70, 40, 15, 5};
+    private static final String[] NOMBRES = {"María", "Juan", "Ana", "Carlos", "Lucía", "Jorge", "Sofía",
+            "Luis", "Valentina", "Diego", "Camila", "Martín", "Florencia", "Pablo", "Julieta", "Nicolás"};
+    private static final String[] APELLIDOS = {"González", "Rodríguez", "Gómez", "Fernández", "López",
+            "Díaz", "Martínez", "Pérez", "García", "Sánchez", "Romero", "Sosa", "Torres", "Álvarez", "Ruiz"};
+    private static final String[] CALLES = {"Av. Rivadavia", "Av. Corrientes", "San Martín", "Belgrano",
+            "Mitre", "Sarmiento", "Av. Santa Fe", "Moreno"};
+    private static final String[] DIAGNOSTICOS = {"Hipertensión arterial", "Diabetes tipo 2", "Asma",
+            "Hipotiroidismo", "Migraña", "Lumbalgia", "Gastritis", "Control sin hallazgos"};
+    private static final String[] TRATAMIENTOS = {"Enalapril 10mg", "Metformina 850mg", "Salbutamol",
+            "Levotiroxina 50mcg", "Ibuprofeno 400mg", "Omeprazol 20mg", "Kinesiología"};
+    private static final String[] ALERGIAS = {"Penicilina", "Aspirina", "Látex", "Polen", "Mariscos",
+            "Ácaros", "Sulfamidas"};
+    private static final String[] TIPOS_SALA = {"Consultorio", "Quirófano", "Emergencias", "Internación"};
+
+    static final int DNI_MEDICOS = 10_000_000;
+    static final int DNI_PACIENTES = 30_000_000;
+    // Matrícula MP- de hasta 6 dígitos
+    private static final int MAXIMO_MEDICOS = 900_000;
+
+    private final long semilla;
+    private final int departamentos;
+    private final int salasPorDepartamento;
+    private final int medicos;
+    private final int pacientes;
+    private final long citas;
+    private final LocalDateTime inicioCitas;
+
+    // inicioCitas es el único dato que no sale de la semilla: por defecto mañana a las 8, porque la
+    // carga de citas rechaza las que quedaron en el pasado
+    @Builder
+    public GeneradorHospital(long semilla, int departamentos, int salasPorDepartamento, int medicos,
+                             int pacientes, long citas, LocalDateTime inicioCitas) {
+        if (departamentos <= 0 || medicos < departamentos) {
+            throw new IllegalArgumentException("Se necesita al menos un departamento y un médico por departamento");
+        }
+        if (medicos > MAXIMO_MEDICOS || pacientes < 0 || (long) DNI_PACIENTES + pacientes > 99_999_999L) {
+            throw new IllegalArgumentException("Cantidad de médicos o pacientes fuera de rango");
+        }
+        if (citas < 0 || (citas > 0 && pacientes == 0)) {
+            throw new IllegalArgumentException("Las citas necesitan al menos un paciente");
+        }
+        this.semilla = semilla;
+        this.departamentos = departamentos;
+        this.salasPorDepartamento = salasPorDepartamento > 0 ? salasPorDepartamento : 2;
+        this.medicos = medicos;
+        this.pacientes = pacientes;
+        this.citas = citas;
+        this.inicioCitas = inicioCitas != null ? inicioCitas
+                : LocalDate.now().plusDays(1).atTime(8, 0);
+    }
+
+    public void generar(DestinoGenerador destino) throws IOException {
+        SplittableRandom random = new SplittableRandom(semilla);
+        Hospital hospital = Hospital.builder()
+                .nombre("Hospital Sintético " + semilla)
+                .direccion("Av. de Mayo 1000")
+                .telefono("011-4000-0000")
+                .build();
+
+        EspecialidadMedica[] especialidades = EspecialidadMedica.values();
+        List<Departamento> listaDepartamentos = new ArrayList<>(departamentos);
+        for (int d = 0; d < departamentos; d++) {
+            EspecialidadMedica especialidad = especialidades[d % especialidades.length];
+            int vuelta = d / especialidades.length;
+            Departamento departamento = Departamento.builder()
+                    .nombre(especialidad.getDescripcion() + (vuelta > 0 ? " " + (vuelta + 1) : ""))
+                    .especialidad(especialidad)
+                    .build();
+            // setHospital ya agrega el departamento a la lista del hospital
+            departamento.setHospital(hospital);
+            for (int s = 0; s < salasPorDepartamento; s++) {
+                departamento.crearSala(especialidad.name().substring(0, 4) + "-" + d + "-" + (s + 1),
+                        TIPOS_SALA[s % TIPOS_SALA.length]);
+            }
+            listaDepartamentos.add(departamento);
+        }
+
+        // El médico j va al departamento j % departamentos; su sala y su turno dentro de cada ronda
+        // salen de su posición en el departamento
+        List<Medico> listaMedicos = new ArrayList<>(medicos);
+        Sala[] salaDeMedico = new Sala[medicos];
+        int[] turnoEnRonda = new int[medicos];
+        int[] turnosPorRonda = new int[medicos];
+        for (int j = 0; j < medicos; j++) {
+            Departamento departamento = listaDepartamentos.get(j % departamentos);
+            int posicion = j / departamentos;
+            int medicosDelDepartamento = medicos / departamentos + (j % departamentos < medicos % departamentos ? 1 : 0);
+            Medico medico = Medico.builder()
+                    .nombre(elegir(random, NOMBRES))
+                    .apellido(elegir(random, APELLIDOS))
+                    .dni(String.valueOf(DNI_MEDICOS + j))
+                    .fechaNacimiento(fechaNacimiento(random, 1950, 1995))
+                    .tipoSangre(tipoSangre(random))
+                    .numeroMatricula("MP-" + (100_000 + j))
+                    .especialidad(departamento.getEspecialidad())
+                    .build();
+            departamento.agregarMedico(medico);
+            listaMedicos.add(medico);
+            salaDeMedico[j] = departamento.getSalas().get(posicion % salasPorDepartamento);
+            turnoEnRonda[j] = posicion / salasPorDepartamento;
+            turnosPorRonda[j] = (medicosDelDepartamento + salasPorDepartamento - 1) / salasPorDepartamento;
+        }
+        destino.hospital(hospital, listaMedicos);
+
+        // Las citas se reparten parejas entre pacientes y, en orden, entre médicos
+        long duracionTurno = CitaManager.DURACION_CITA_POR_DEFECTO.toMinutes();
+        long[] rondaDeMedico = new long[medicos];
+        long citaActual = 0;
+        for (int i = 0; i < pacientes; i++) {
+            Paciente paciente = paciente(random, i);
+            long citasDelPaciente = citas / pacientes + (i < citas % pacientes ? 1 : 0);
+            List<Cita> citasPaciente = new ArrayList<>((int) citasDelPaciente);
+            for (long c = 0; c < citasDelPaciente; c++, citaActual++) {
+                int j = (int) (citaActual % medicos);
+                long turno = rondaDeMedico[j]++ * turnosPorRonda[j] + turnoEnRonda[j];
+                citasPaciente.add(Cita.builder()
+                        .paciente(paciente)
+                        .medico(listaMedicos.get(j))
+                        .sala(salaDeMedico[j])
+                        .fechaHora(inicioCitas.plus(turno * duracionTurno, ChronoUnit.MINUTES))
+                        .costo(BigDecimal.valueOf(50 + random.nextInt(450), -2).setScale(2))
+                        .observaciones(random.nextInt(4) == 0 ? "Traer estudios previos" : "")
+                        .build());
+            }
+            destino.paciente(paciente, citasPaciente);
+        }
+    }
+
+    private Paciente paciente(SplittableRandom random, int indice) {
+        Paciente paciente = Paciente.builder()
+                .nombre(elegir(random, NOMBRES))
+                .apellido(elegir(random, APELLIDOS))
+                .dni(String.valueOf(DNI_PACIENTES + indice))
+                .fechaNacimiento(fechaNacimiento(random, 1930, 2020))
+                .tipoSangre(tipoSangre(random))
+                .telefono(String.format("011-%04d-%04d", random.nextInt(10_000), random.nextInt(10_000)))
+                .direccion(elegir(random, CALLES) + " " + (1 + random.nextInt(5000)))
+                .build();
+
+        HistoriaClinica historia = paciente.getHistoriaClinica();
+        elegirDistintos(random, DIAGNOSTICOS, random.nextInt(4), historia::agregarDiagnostico);
+        elegirDistintos(random, TRATAMIENTOS, random.nextInt(3), historia::agregarTratamiento);
+        // Uno de cada cinco pacientes tiene alergias
+        if (random.nextInt(5) == 0) {
+            elegirDistintos(random, ALERGIAS, 1 + random.nextInt(2), historia::agregarAlergia);
+        }
+        return paciente;
+    }
+
+    // 'cantidad' opciones consecutivas desde una posición al azar, asi no se repiten
+    private static void elegirDistintos(SplittableRandom random, String[] opciones, int cantidad,
+                                        Consumer<String> agregar) {
+        int inicio = random.nextInt(opciones.length);
+        for (int k = 0; k < cantidad; k++) {
+            agregar.accept(opciones[(inicio + k) % opciones.length]);
+        }
+    }
+
+    private static String elegir(SplittableRandom random, String[] opciones) {
+        return opciones[random.nextInt(opciones.length)];
+    }
+
+    private static LocalDate fechaNacimiento(SplittableRandom random, int desde, int hasta) {
+        return LocalDate.of(desde, 1, 1).plusDays(random.nextInt((hasta - desde) * 365));
+    }
+
+    private static TipoSangre tipoSangre(SplittableRandom random) {
+        int valor = random.nextInt(1000);
+        for (int i = 0; i < FRECUENCIA_SANGRE.length; i++) {
+            valor -= FRECUENCIA_SANGRE[i];
+            if (valor < 0) {
+                return TIPOS_SANGRE[i];
+            }
+        }
+        return TIPOS_SANGRE[0];
+    }
+}
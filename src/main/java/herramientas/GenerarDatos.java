@@ -0,0 +1,51 @@
+package herramientas;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+// Línea de comandos del generador:
+//   csv <directorio> <semilla> <departamentos> <medicos> <pacientes> <citas>
+//   db  <jdbc-url|-> <semilla> <departamentos> <medicos> <pacientes> <citas>
+// Con "db -" usa la base configurada en HospitalJPA_PU. Desde Gradle: gradle generarDatos --args="..."
+public class GenerarDatos {
+    public static void main(String[] args) throws Exception {
+        if (args.length != 7 || !(args[0].equals("csv") || args[0].equals("db"))) {
+            System.err.println("Uso: csv <directorio> | db <jdbc-url|->  <semilla> <departamentos> <medicos> <pacientes> <citas>");
+            System.exit(1);
+        }
+
+        GeneradorHospital generador = GeneradorHospital.builder()
+                .semilla(Long.parseLong(args[2]))
+                .departamentos(Integer.parseInt(args[3]))
+                .medicos(Integer.parseInt(args[4]))
+                .pacientes(Integer.parseInt(args[5]))
+                .citas(Long.parseLong(args[6]))
+                .build();
+
+        long inicio = System.nanoTime();
+        if (args[0].equals("csv")) {
+            try (DestinoGeneradorCsv destino = new DestinoGeneradorCsv(Path.of(args[1]))) {
+                generador.generar(destino);
+            }
+        } else {
+            Map<String, Object> propiedades = new HashMap<>();
+            propiedades.put("hibernate.show_sql", "false");
+            propiedades.put("hibernate.format_sql", "false");
+            if (!args[1].equals("-")) {
+                propiedades.put("jakarta.persistence.jdbc.url", args[1]);
+            }
+            EntityManagerFactory emf = Persistence.createEntityManagerFactory("HospitalJPA_PU", propiedades);
+            try (DestinoGeneradorJpa destino = new DestinoGeneradorJpa(emf)) {
+                generador.generar(destino);
+            } finally {
+                emf.close();
+            }
+        }
+        System.out.printf("Generados %d pacientes y %d citas en %.1f s%n", generador.getPacientes(),
+                generador.getCitas(), (System.nanoTime() - inicio) / 1e9);
+    }
+}
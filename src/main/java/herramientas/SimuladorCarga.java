@@ -0,0 +1,311 @@
+package herramientas;
+
+import entidades.*;
+import lombok.Builder;
+import lombok.Getter;
+import servicios.CitaException;
+import servicios.CitaManager;
+import servicios.HistogramaLatencia;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+// Simulador de carga de lazo cerrado sobre un CitaManager: cada hilo elige una operación según los
+// pesos de la mezcla, la ejecuta, mide cuánto tardó y recién ahí pasa a la siguiente, sin pausas.
+// Como cada hilo espera su respuesta, una operación lenta frena al hilo y la carga ofrecida baja con
+// ella: sirve para comparar configuraciones y encontrar contención, no para medir latencias de cola
+// bajo un ritmo de llegadas fijo.
+// Cada 'intervaloReporte' imprime ops/s, rechazos/s y p50/p99/p999/máximo por operación; al final,
+// el total de la corrida.
+@Getter
+public class SimuladorCarga {
+    public enum Operacion {
+        RESERVA, CONSULTA_PACIENTE, CONSULTA_MEDICO, CONSULTA_SALA, CAMBIO_ESTADO, GUARDADO
+    }
+
+    private static final EstadoCita[] ESTADOS = EstadoCita.values();
+    private static final BigDecimal COSTO = new BigDecimal("100.00");
+
+    private final CitaManager manager;
+    private final List<Paciente> pacientes;
+    private final List<Medico> medicos;
+    private final int hilos;
+    private final boolean hilosVirtuales;
+    private final Duration duracion;
+    private final Duration intervaloReporte;
+    private final Map<Operacion, Integer> pesos;
+    private final long semilla;
+    // Las reservas caen en turnos al azar de [inicioReservas, inicioReservas + horizonte)
+    private final LocalDateTime inicioReservas;
+    private final Duration horizonte;
+    // Cada hilo guarda su snapshot en su propio archivo dentro de este directorio
+    private final Path directorioGuardado;
+
+    private final Operacion[] operaciones;
+    private final int[] pesosAcumulados;
+
+    @Builder
+    public SimuladorCarga(CitaManager manager, List<Paciente> pacientes, List<Medico> medicos, int hilos,
+                          boolean hilosVirtuales, Duration duracion, Duration intervaloReporte,
+                          Map<Operacion, Integer> pesos, long semilla, LocalDateTime inicioReservas,
+                          Duration horizonte, Path directorioGuardado) {
+        if (pacientes == null || pacientes.isEmpty() || medicos == null || medicos.isEmpty()) {
+            throw new IllegalArgumentException("Se necesitan pacientes y médicos para simular");
+        }
+        if (hilos <= 0 || duracion == null || duracion.isNegative() || duracion.isZero()) {
+            throw new IllegalArgumentException("La cantidad de hilos y la duración deben ser mayores que cero");
+        }
+        this.manager = manager;
+        this.pacientes = pacientes;
+        this.medicos = medicos;
+        this.hilos = hilos;
+        this.hilosVirtuales = hilosVirtuales;
+        this.duracion = duracion;
+        this.intervaloReporte = intervaloReporte != null ? intervaloReporte : Duration.ofSeconds(5);
+        this.pesos = pesos != null ? new EnumMap<>(pesos) : mezclaPorDefecto();
+        this.semilla = semilla;
+        this.inicioReservas = inicioReservas != null ? inicioReservas
+                : LocalDateTime.now().plusDays(1).withHour(8).withMinute(0).withSecond(0).withNano(0);
+        this.horizonte = horizonte != null ? horizonte : Duration.ofDays(365);
+        this.directorioGuardado = directorioGuardado;
+
+        List<Operacion> conPeso = new ArrayList<>();
+        for (Operacion operacion : Operacion.values()) {
+            if (this.pesos.getOrDefault(operacion, 0) > 0) {
+                conPeso.add(operacion);
+            }
+        }
+        if (conPeso.isEmpty()) {
+            throw new IllegalArgumentException("La mezcla de operaciones no tiene ninguna con peso");
+        }
+        if (conPeso.contains(Operacion.GUARDADO) && directorioGuardado == null) {
+            throw new IllegalArgumentException("GUARDADO necesita un directorio de guardado");
+        }
+        this.operaciones = conPeso.toArray(new Operacion[0]);
+        this.pesosAcumulados = new int[operaciones.length];
+        int acumulado = 0;
+        for (int i = 0; i < operaciones.length; i++) {
+            acumulado += this.pesos.get(operaciones[i]);
+            pesosAcumulados[i] = acumulado;
+        }
+    }
+
+    // Mezcla de mostrador: sobre todo consultas, bastantes reservas y algún guardado
+    public static Map<Operacion, Integer> mezclaPorDefecto() {
+        Map<Operacion, Integer> mezcla = new EnumMap<>(Operacion.class);
+        mezcla.put(Operacion.RESERVA, 20);
+        mezcla.put(Operacion.CONSULTA_PACIENTE, 35);
+        mezcla.put(Operacion.CONSULTA_MEDICO, 20);
+        mezcla.put(Operacion.CONSULTA_SALA, 10);
+        mezcla.put(Operacion.CAMBIO_ESTADO, 14);
+        mezcla.put(Operacion.GUARDADO, 1);
+        return mezcla;
+    }
+
+    // Corre la simulación y devuelve los histogramas de toda la corrida por operación
+    public Map<Operacion, HistogramaLatencia> ejecutar(PrintStream salida) throws InterruptedException {
+        AtomicReference<Intervalo> actual = new AtomicReference<>(new Intervalo());
+        Intervalo total = new Intervalo();
+        long inicio = System.nanoTime();
+        long fin = inicio + duracion.toNanos();
+
+        // Un generador por hilo, derivado de la semilla: la secuencia de operaciones de cada hilo se repite
+        SplittableRandom base = new SplittableRandom(semilla);
+        List<Callable<Void>> trabajadores = new ArrayList<>(hilos);
+        for (int h = 0; h < hilos; h++) {
+            SplittableRandom random = base.split();
+            Path archivo = directorioGuardado != null ? directorioGuardado.resolve("carga-" + h + ".snap") : null;
+            trabajadores.add(() -> trabajar(random, archivo, actual, fin));
+        }
+
+        salida.printf("%d hilos%s, %d s, mezcla %s%n", hilos, hilosVirtuales ? " virtuales" : "",
+                duracion.toSeconds(), pesos);
+        encabezado(salida);
+        ExecutorService ejecutor = crearEjecutor();
+        try {
+            List<Future<Void>> futuros = new ArrayList<>(hilos);
+            for (Callable<Void> trabajador : trabajadores) {
+                futuros.add(ejecutor.submit(trabajador));
+            }
+            long proximoReporte = inicio + intervaloReporte.toNanos();
+            long anterior = inicio;
+            while (proximoReporte < fin) {
+                TimeUnit.NANOSECONDS.sleep(proximoReporte - System.nanoTime());
+                long ahora = System.nanoTime();
+                Intervalo terminado = actual.getAndSet(new Intervalo());
+                terminado.imprimir(salida, (ahora - inicio) / 1e9, (ahora - anterior) / 1e9);
+                total.acumular(terminado);
+                anterior = ahora;
+                proximoReporte += intervaloReporte.toNanos();
+            }
+            for (Future<Void> futuro : futuros) {
+                futuro.get();
+            }
+            long ahora = System.nanoTime();
+            Intervalo ultimo = actual.get();
+            ultimo.imprimir(salida, (ahora - inicio) / 1e9, (ahora - anterior) / 1e9);
+            total.acumular(ultimo);
+
+            salida.println("Total");
+            encabezado(salida);
+            total.imprimir(salida, (ahora - inicio) / 1e9, (ahora - inicio) / 1e9);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Falló un hilo de la simulación", e.getCause());
+        } finally {
+            ejecutor.shutdownNow();
+        }
+        return total.latencias;
+    }
+
+    private ExecutorService crearEjecutor() {
+        if (!hilosVirtuales) {
+            return Executors.newFixedThreadPool(hilos);
+        }
+        // El proyecto compila con Java 17; los hilos virtuales se buscan en tiempo de ejecución
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Los hilos virtuales necesitan Java 21 o superior", e);
+        }
+    }
+
+    private Void trabajar(SplittableRandom random, Path archivo, AtomicReference<Intervalo> actual, long fin)
+            throws IOException {
+        while (System.nanoTime() < fin) {
+            Operacion operacion = elegirOperacion(random);
+            long desde = System.nanoTime();
+            boolean aceptada = ejecutar(operacion, random, archivo);
+            long latencia = System.nanoTime() - desde;
+            actual.get().registrar(operacion, latencia, aceptada);
+        }
+        return null;
+    }
+
+    // false si la operación terminó rechazada (turno ocupado, paciente sin citas)
+    private boolean ejecutar(Operacion operacion, SplittableRandom random, Path archivo) throws IOException {
+        switch (operacion) {
+            case RESERVA:
+                return reservar(random);
+            case CONSULTA_PACIENTE:
+                manager.getCitasPorPaciente(elegir(random, pacientes));
+                return true;
+            case CONSULTA_MEDICO:
+                manager.getCitasPorMedico(elegir(random, medicos));
+                return true;
+            case CONSULTA_SALA:
+                manager.getCitasPorSala(elegir(random, elegir(random, medicos).getDepartamento().getSalas()));
+                return true;
+            case CAMBIO_ESTADO:
+                return cambiarEstado(random);
+            case GUARDADO:
+                manager.guardarSnapshot(archivo.toString());
+                return true;
+            default:
+                throw new IllegalStateException("Operación desconocida: " + operacion);
+        }
+    }
+
+    private boolean reservar(SplittableRandom random) {
+        Medico medico = elegir(random, medicos);
+        Sala sala = elegir(random, medico.getDepartamento().getSalas());
+        long turnos = Math.max(1, horizonte.toMinutes() / manager.getDuracionCita().toMinutes());
+        LocalDateTime fechaHora = inicioReservas.plus(manager.getDuracionCita().multipliedBy(random.nextLong(turnos)));
+        try {
+            manager.programarCita(elegir(random, pacientes), medico, sala, fechaHora, COSTO);
+            return true;
+        } catch (CitaException e) {
+            return false;
+        }
+    }
+
+    private boolean cambiarEstado(SplittableRandom random) {
+        List<Cita> citas = manager.getCitasPorPaciente(elegir(random, pacientes));
+        if (citas.isEmpty()) {
+            return false;
+        }
+        try {
+            manager.cambiarEstado(elegir(random, citas), ESTADOS[random.nextInt(ESTADOS.length)]);
+            return true;
+        } catch (CitaException e) {
+            return false;
+        }
+    }
+
+    private Operacion elegirOperacion(SplittableRandom random) {
+        int valor = random.nextInt(pesosAcumulados[pesosAcumulados.length - 1]);
+        for (int i = 0; i < pesosAcumulados.length; i++) {
+            if (valor < pesosAcumulados[i]) {
+                return operaciones[i];
+            }
+        }
+        return operaciones[operaciones.length - 1];
+    }
+
+    private static <T> T elegir(SplittableRandom random, List<T> lista) {
+        return lista.get(random.nextInt(lista.size()));
+    }
+
+    private static void encabezado(PrintStream salida) {
+        salida.printf("%8s  %-18s %10s %10s %10s %10s %10s %10s%n",
+                "t(s)", "operación", "ops/s", "rech/s", "p50(us)", "p99(us)", "p999(us)", "max(us)");
+    }
+
+    // Latencias y rechazos de un intervalo. Un hilo que tomó el intervalo justo antes del cambio puede
+    // registrar su operación en el viejo despues de impreso: esa muestra (a lo sumo una por hilo e
+    // intervalo) no aparece en los reportes.
+    private static class Intervalo {
+        private final Map<Operacion, HistogramaLatencia> latencias = new EnumMap<>(Operacion.class);
+        private final Map<Operacion, LongAdder> rechazos = new EnumMap<>(Operacion.class);
+
+        Intervalo() {
+            for (Operacion operacion : Operacion.values()) {
+                latencias.put(operacion, new HistogramaLatencia());
+                rechazos.put(operacion, new LongAdder());
+            }
+        }
+
+        void registrar(Operacion operacion, long nanos, boolean aceptada) {
+            latencias.get(operacion).registrar(nanos);
+            if (!aceptada) {
+                rechazos.get(operacion).increment();
+            }
+        }
+
+        void acumular(Intervalo otro) {
+            for (Operacion operacion : Operacion.values()) {
+                latencias.get(operacion).acumular(otro.latencias.get(operacion));
+                rechazos.get(operacion).add(otro.rechazos.get(operacion).sum());
+            }
+        }
+
+        void imprimir(PrintStream salida, double transcurrido, double segundos) {
+            for (Operacion operacion : Operacion.values()) {
+                HistogramaLatencia histograma = latencias.get(operacion);
+                if (histograma.getCantidad() == 0) {
+                    continue;
+                }
+                salida.printf("%8.1f  %-18s %10.0f %10.0f %10.1f %10.1f %10.1f %10.1f%n", transcurrido,
+                        operacion, histograma.getCantidad() / segundos, rechazos.get(operacion).sum() / segundos,
+                        histograma.percentil(50) / 1e3, histograma.percentil(99) / 1e3,
+                        histograma.percentil(99.9) / 1e3, histograma.getMaximo() / 1e3);
+            }
+        }
+    }
+}
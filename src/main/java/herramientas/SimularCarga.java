@@ -0,0 +1,126 @@
+package herramientas;
+
+import entidades.Cita;
+import entidades.Hospital;
+import entidades.Medico;
+import entidades.Paciente;
+import servicios.CitaManager;
+import servicios.SolicitudCita;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Línea de comandos del simulador de carga. Opciones clave=valor, todas opcionales:
+//   hilos=4 virtuales=false segundos=30 intervalo=5 semilla=42
+//   departamentos=12 medicos=200 pacientes=10000 citas=50000 horizonte=365 (dias)
+//   mezcla=RESERVA:20,CONSULTA_PACIENTE:35,CONSULTA_MEDICO:20,CONSULTA_SALA:10,CAMBIO_ESTADO:14,GUARDADO:1
+// Las citas iniciales salen de GeneradorHospital con la misma semilla. Desde Gradle:
+//   gradle simularCarga --args="hilos=8 segundos=60"
+public class SimularCarga {
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opciones = new HashMap<>();
+        for (String arg : args) {
+            int igual = arg.indexOf('=');
+            if (igual <= 0) {
+                System.err.println("Opción inválida (se espera clave=valor): " + arg);
+                System.exit(1);
+            }
+            opciones.put(arg.substring(0, igual), arg.substring(igual + 1));
+        }
+        long semilla = Long.parseLong(opciones.getOrDefault("semilla", "42"));
+
+        GeneradorHospital generador = GeneradorHospital.builder()
+                .semilla(semilla)
+                .departamentos(Integer.parseInt(opciones.getOrDefault("departamentos", "12")))
+                .medicos(Integer.parseInt(opciones.getOrDefault("medicos", "200")))
+                .pacientes(Integer.parseInt(opciones.getOrDefault("pacientes", "10000")))
+                .citas(Long.parseLong(opciones.getOrDefault("citas", "50000")))
+                .build();
+        EnMemoria datos = new EnMemoria();
+        generador.generar(datos);
+
+        CitaManager manager = new CitaManager();
+        long rechazadas = manager.programarCitas(datos.solicitudes).stream()
+                .filter(resultado -> !resultado.isAceptada())
+                .count();
+        System.out.printf("Precarga: %d pacientes, %d médicos, %d citas (%d rechazadas)%n",
+                datos.pacientes.size(), datos.medicos.size(), datos.solicitudes.size(), rechazadas);
+        datos.solicitudes = null;
+
+        Path directorio = Files.createTempDirectory("carga-citas");
+        try {
+            SimuladorCarga.builder()
+                    .manager(manager)
+                    .pacientes(datos.pacientes)
+                    .medicos(datos.medicos)
+                    .hilos(Integer.parseInt(opciones.getOrDefault("hilos", "4")))
+                    .hilosVirtuales(Boolean.parseBoolean(opciones.getOrDefault("virtuales", "false")))
+                    .duracion(Duration.ofSeconds(Long.parseLong(opciones.getOrDefault("segundos", "30"))))
+                    .intervaloReporte(Duration.ofSeconds(Long.parseLong(opciones.getOrDefault("intervalo", "5"))))
+                    .pesos(opciones.containsKey("mezcla") ? mezcla(opciones.get("mezcla"))
+                            : SimuladorCarga.mezclaPorDefecto())
+                    .semilla(semilla)
+                    .inicioReservas(generador.getInicioCitas())
+                    .horizonte(Duration.ofDays(Long.parseLong(opciones.getOrDefault("horizonte", "365"))))
+                    .directorioGuardado(directorio)
+                    .build()
+                    .ejecutar(System.out);
+        } finally {
+            try (var archivos = Files.list(directorio)) {
+                for (Path archivo : (Iterable<Path>) archivos::iterator) {
+                    Files.deleteIfExists(archivo);
+                }
+            }
+            Files.deleteIfExists(directorio);
+        }
+    }
+
+    private static Map<SimuladorCarga.Operacion, Integer> mezcla(String texto) {
+        Map<SimuladorCarga.Operacion, Integer> pesos = new EnumMap<>(SimuladorCarga.Operacion.class);
+        for (String parte : texto.split(",")) {
+            String[] claveValor = parte.split(":");
+            if (claveValor.length != 2) {
+                throw new IllegalArgumentException("Mezcla inválida, se espera OPERACION:peso: " + parte);
+            }
+            pesos.put(SimuladorCarga.Operacion.valueOf(claveValor[0].trim().toUpperCase()),
+                    Integer.parseInt(claveValor[1].trim()));
+        }
+        return pesos;
+    }
+
+    // Junta todo en memoria: el simulador necesita las listas de pacientes y médicos
+    private static class EnMemoria implements DestinoGenerador {
+        private final List<Medico> medicos = new ArrayList<>();
+        private final List<Paciente> pacientes = new ArrayList<>();
+        private List<SolicitudCita> solicitudes = new ArrayList<>();
+
+        @Override
+        public void hospital(Hospital hospital, List<Medico> listaMedicos) {
+            medicos.addAll(listaMedicos);
+        }
+
+        @Override
+        public void paciente(Paciente paciente, List<Cita> citas) {
+            pacientes.add(paciente);
+            for (Cita cita : citas) {
+                solicitudes.add(SolicitudCita.builder()
+                        .paciente(cita.getPaciente())
+                        .medico(cita.getMedico())
+                        .sala(cita.getSala())
+                        .fechaHora(cita.getFechaHora())
+                        .costo(cita.getCosto())
+                        .build());
+            }
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
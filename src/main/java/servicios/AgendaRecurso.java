@@ -0,0 +1,67 @@
+package servicios;
+
+import entidades.Cita;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+// Indice temporal de las citas de un recurso (médico o sala), ordenado por fecha de inicio.
+// Todas las citas duran lo mismo, asi que dos citas se solapan si sus inicios estan a menos de una duracion.
+// Toda alta pasa antes por estaLibre, por eso no puede haber dos citas con el mismo inicio.
+class AgendaRecurso {
+    private final Duration duracion;
+    private final NavigableMap<LocalDateTime, Cita> citasPorInicio = new TreeMap<>();
+
+    AgendaRecurso(Duration duracion) {
+        this.duracion = duracion;
+    }
+
+    boolean estaLibre(LocalDateTime inicio) {
+        LocalDateTime siguiente = citasPorInicio.higherKey(inicio.minus(duracion));
+        return siguiente == null || !siguiente.isBefore(inicio.plus(duracion));
+    }
+
+    void agregar(Cita cita) {
+        citasPorInicio.put(cita.getFechaHora(), cita);
+    }
+
+    boolean quitar(Cita cita) {
+        return citasPorInicio.remove(cita.getFechaHora(), cita);
+    }
+
+    Cita get(LocalDateTime inicio) {
+        return citasPorInicio.get(inicio);
+    }
+
+    // Citas que se solapan con el intervalo [desde, hasta)
+    List<Cita> getCitas(LocalDateTime desde, LocalDateTime hasta) {
+        if (!desde.isBefore(hasta)) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(citasPorInicio.subMap(desde.minus(duracion), false, hasta, false).values());
+    }
+
+    // Primer inicio >= desde en el que entra un turno de 'largo' sin pisar ninguna cita.
+    // Solo recorre las citas encadenadas a partir de 'desde', no la agenda completa.
+    LocalDateTime proximoLibre(LocalDateTime desde, Duration largo) {
+        LocalDateTime inicio = desde;
+        LocalDateTime siguiente = citasPorInicio.higherKey(inicio.minus(duracion));
+        while (siguiente != null && siguiente.isBefore(inicio.plus(largo))) {
+            inicio = siguiente.plus(duracion);
+            siguiente = citasPorInicio.higherKey(inicio.minus(duracion));
+        }
+        return inicio;
+    }
+
+    List<Cita> getCitas() {
+        return new ArrayList<>(citasPorInicio.values());
+    }
+
+    int size() {
+        return citasPorInicio.size();
+    }
+}
@@ -0,0 +1,98 @@
+package servicios;
+
+import entidades.Cita;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Agendas por id de médico y de sala de las citas aceptadas en una carga a la base. Rechaza las que se
+// solapan con otra ya aceptada del mismo archivo, lo mismo que hace indexarCargada en CitaManager.
+// De cada cita guarda solo el inicio, en arreglos ordenados por recurso (12 bytes por recurso y cita):
+// una entrada de AgendaRecurso con su Cita no entraba en memoria con millones de filas.
+class AgendasImportacion {
+    private final long segundosDuracion;
+    private final long nanosDuracion;
+    private final Map<Long, Inicios> medicos = new HashMap<>();
+    private final Map<Long, Inicios> salas = new HashMap<>();
+
+    AgendasImportacion(Duration duracionCita) {
+        this.segundosDuracion = duracionCita.getSeconds();
+        this.nanosDuracion = duracionCita.toNanos();
+    }
+
+    // Anota la cita si el médico y la sala están libres en su horario; si no, la rechaza sin anotarla
+    void reservar(Cita cita) throws CitaException {
+        LocalDateTime fechaHora = cita.getFechaHora();
+        long segundos = fechaHora.toEpochSecond(ZoneOffset.UTC);
+        int nanos = fechaHora.getNano();
+        Inicios medico = medicos.computeIfAbsent(cita.getMedico().getId(), id -> new Inicios());
+        Inicios sala = salas.computeIfAbsent(cita.getSala().getId(), id -> new Inicios());
+
+        int enMedico = medico.posicion(segundos, nanos);
+        if (seSolapa(medico, enMedico, segundos, nanos)) {
+            throw new CitaException(MotivoRechazo.MEDICO_OCUPADO,
+                    "El médico no está disponible en la fecha y hora solicitadas.");
+        }
+        int enSala = sala.posicion(segundos, nanos);
+        if (seSolapa(sala, enSala, segundos, nanos)) {
+            throw new CitaException(MotivoRechazo.SALA_OCUPADA,
+                    "La sala no está disponible en la fecha y hora solicitadas.");
+        }
+        medico.agregar(enMedico, segundos, nanos);
+        sala.agregar(enSala, segundos, nanos);
+    }
+
+    // Las citas anotadas no se solapan entre sí: alcanza con mirar la anterior y la siguiente
+    private boolean seSolapa(Inicios inicios, int posicion, long segundos, int nanos) {
+        return (posicion > 0 && cerca(inicios, posicion - 1, segundos, nanos))
+                || (posicion < inicios.cantidad && cerca(inicios, posicion, segundos, nanos));
+    }
+
+    // Dos citas se solapan si sus inicios estan a menos de una duracion (como en AgendaRecurso)
+    private boolean cerca(Inicios inicios, int i, long segundos, int nanos) {
+        long diferencia = inicios.segundos[i] - segundos;
+        if (Math.abs(diferencia) > segundosDuracion + 1) {
+            return false;
+        }
+        return Math.abs(diferencia * 1_000_000_000L + inicios.nanos[i] - nanos) < nanosDuracion;
+    }
+
+    private static class Inicios {
+        private long[] segundos = new long[16];
+        private int[] nanos = new int[16];
+        private int cantidad;
+
+        // Primera posición con un inicio posterior al dado
+        int posicion(long segundos, int nanos) {
+            int desde = 0;
+            int hasta = cantidad;
+            while (desde < hasta) {
+                int medio = (desde + hasta) >>> 1;
+                if (this.segundos[medio] < segundos
+                        || (this.segundos[medio] == segundos && this.nanos[medio] <= nanos)) {
+                    desde = medio + 1;
+                } else {
+                    hasta = medio;
+                }
+            }
+            return desde;
+        }
+
+        // Los archivos suelen venir en orden cronologico, asi que casi siempre agrega al final
+        void agregar(int posicion, long segundos, int nanos) {
+            if (cantidad == this.segundos.length) {
+                this.segundos = Arrays.copyOf(this.segundos, cantidad * 2);
+                this.nanos = Arrays.copyOf(this.nanos, cantidad * 2);
+            }
+            System.arraycopy(this.segundos, posicion, this.segundos, posicion + 1, cantidad - posicion);
+            System.arraycopy(this.nanos, posicion, this.nanos, posicion + 1, cantidad - posicion);
+            this.segundos[posicion] = segundos;
+            this.nanos[posicion] = nanos;
+            cantidad++;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package servicios;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Locks por franjas para médicos, salas y pacientes: cada recurso cae en una franja segun su hash.
+// Las franjas se toman siempre en orden ascendente de indice, asi que dos reservas nunca se bloquean mutuamente.
+class BloqueoRecursos {
+    private final ReentrantLock[] franjas;
+    private final int mascara;
+
+    BloqueoRecursos(int cantidadFranjas) {
+        int tamanio = Integer.highestOneBit(Math.max(1, cantidadFranjas - 1)) << 1;
+        this.franjas = new ReentrantLock[tamanio];
+        for (int i = 0; i < tamanio; i++) {
+            franjas[i] = new ReentrantLock();
+        }
+        this.mascara = tamanio - 1;
+    }
+
+    Bloqueo adquirir(Object... recursos) {
+        int[] indices = new int[recursos.length];
+        for (int i = 0; i < recursos.length; i++) {
+            indices[i] = indice(recursos[i]);
+        }
+        Arrays.sort(indices);
+
+        int distintos = 0;
+        for (int i = 0; i < indices.length; i++) {
+            if (i == 0 || indices[i] != indices[i - 1]) {
+                indices[distintos++] = indices[i];
+            }
+        }
+        return bloquear(Arrays.copyOf(indices, distintos));
+    }
+
+    // Toma todas las franjas: deja al manager en un estado consistente para cargas completas o snapshots
+    Bloqueo adquirirTodos() {
+        int[] indices = new int[franjas.length];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = i;
+        }
+        return bloquear(indices);
+    }
+
+    private Bloqueo bloquear(int[] indices) {
+        int tomados = 0;
+        try {
+            for (int indice : indices) {
+                franjas[indice].lock();
+                tomados++;
+            }
+        } catch (RuntimeException | Error e) {
+            liberar(indices, tomados);
+            throw e;
+        }
+        return new Bloqueo(indices);
+    }
+
+    private void liberar(int[] indices, int tomados) {
+        for (int i = tomados - 1; i >= 0; i--) {
+            franjas[indices[i]].unlock();
+        }
+    }
+
+    private int indice(Object recurso) {
+        int h = recurso.hashCode();
+        h ^= (h >>> 16);
+        return h & mascara;
+    }
+
+    class Bloqueo implements AutoCloseable {
+        private final int[] indices;
+
+        private Bloqueo(int[] indices) {
+            this.indices = indices;
+        }
+
+        @Override
+        public void close() {
+            liberar(indices, indices.length);
+        }
+    }
+}
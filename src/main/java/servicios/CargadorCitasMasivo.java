@@ -0,0 +1,208 @@
+package servicios;
+
+import entidades.Medico;
+import entidades.Paciente;
+import entidades.Sala;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+// Carga masiva de un CSV de citas (formato de Cita.toCsvString) directo a la base, agregándolas a las que
+// ya hay. Usa el mismo importador y parser que cargarCitas, pero sin mapas armados de antemano: cada DNI
+// o número de sala se busca en la base la primera vez que aparece y el resultado (también si no existe)
+// queda en memoria para el resto del archivo, una consulta por clave.
+// Una cita que se solapa con otra anterior del archivo (mismo médico o misma sala) se rechaza. Las citas
+// que ya estaban en la base NO se revisan: cargar dos veces el mismo archivo, o uno que pisa horarios ya
+// tomados, deja turnos dobles. Para reemplazar todo con chequeo completo está cargarCitas de CitaManagerJpa.
+// Las citas se insertan con una StatelessSession en batches JDBC: no hay contexto de persistencia; en
+// memoria quedan las claves distintas y una entrada de agenda por cita aceptada. Se confirma cada
+// 'filasPorCommit' filas aceptadas; si la carga falla a la mitad, lo confirmado antes queda en la base.
+public class CargadorCitasMasivo {
+    public static final int FILAS_POR_COMMIT_POR_DEFECTO = 1000;
+    public static final int TAMANIO_BATCH_POR_DEFECTO = 100;
+
+    private final EntityManagerFactory emf;
+    private final int filasPorCommit;
+    private final int tamanioBatch;
+    private final Duration duracionCita;
+
+    public CargadorCitasMasivo(EntityManagerFactory emf) {
+        this(emf, FILAS_POR_COMMIT_POR_DEFECTO, TAMANIO_BATCH_POR_DEFECTO, CitaManager.DURACION_CITA_POR_DEFECTO);
+    }
+
+    @Builder
+    public CargadorCitasMasivo(EntityManagerFactory emf, int filasPorCommit, int tamanioBatch, Duration duracionCita) {
+        this.emf = Objects.requireNonNull(emf, "El EntityManagerFactory no puede ser nulo");
+        this.filasPorCommit = filasPorCommit > 0 ? filasPorCommit : FILAS_POR_COMMIT_POR_DEFECTO;
+        this.tamanioBatch = tamanioBatch > 0 ? tamanioBatch : TAMANIO_BATCH_POR_DEFECTO;
+        if (duracionCita != null && (duracionCita.isNegative() || duracionCita.isZero())) {
+            throw new IllegalArgumentException("La duración de la cita debe ser mayor que cero");
+        }
+        this.duracionCita = duracionCita != null ? duracionCita : CitaManager.DURACION_CITA_POR_DEFECTO;
+    }
+
+    public Resultado cargar(Path archivo) throws IOException {
+        if (!Files.isReadable(archivo)) {
+            throw new FileNotFoundException(archivo.toString());
+        }
+        long inicioNanos = System.nanoTime();
+        try (StatelessSession sesion = emf.unwrap(SessionFactory.class).openStatelessSession()) {
+            sesion.setJdbcBatchSize(tamanioBatch);
+
+            // Del paciente solo hace falta el id para la clave foránea: se guarda una referencia sin
+            // inicializar (como getReference) y no la entidad con su historia clínica, que con muchos
+            // pacientes distintos llenaba la memoria
+            EntityPersister persisterPaciente = emf.unwrap(SessionFactoryImplementor.class)
+                    .getMappingMetamodel().getEntityDescriptor(Paciente.class);
+            Buscador<Paciente> pacientes = new Buscador<>(dni -> {
+                Long id = primero(sesion.createQuery("SELECT p.id FROM Paciente p WHERE p.dni = :dni", Long.class)
+                        .setParameter("dni", dni)
+                        .getResultList());
+                return id == null ? null
+                        : (Paciente) persisterPaciente.createProxy(id, (SharedSessionContractImplementor) sesion);
+            });
+            Buscador<Medico> medicos = new Buscador<>(dni -> primero(sesion.createQuery(
+                            "SELECT m FROM Medico m WHERE m.dni = :dni", Medico.class)
+                    .setParameter("dni", dni)
+                    .getResultList()));
+            // El parser compara la especialidad del médico con la del departamento de la sala. El número
+            // de sala no es único entre hospitales: gana la de menor id, igual que al armar los mapas a mano
+            Buscador<Sala> salas = new Buscador<>(numero -> primero(sesion.createQuery(
+                            "SELECT s FROM Sala s JOIN FETCH s.departamento WHERE s.numero = :numero ORDER BY s.id",
+                            Sala.class)
+                    .setParameter("numero", numero)
+                    .setMaxResults(1)
+                    .getResultList()));
+
+            AgendasImportacion agendas = new AgendasImportacion(duracionCita);
+            Tramo tramo = new Tramo(sesion);
+            try {
+                ReporteImportacion reporte = ImportadorCitasCsv.importar(archivo,
+                        new ParserCitaCsv(pacientes, medicos, salas), cita -> {
+                            agendas.reservar(cita);
+                            sesion.insert(cita);
+                            if (++tramo.filas == filasPorCommit) {
+                                tramo.confirmar();
+                                tramo.abrir();
+                            }
+                        });
+                tramo.confirmar();
+                return new Resultado(reporte, System.nanoTime() - inicioNanos, pacientes.size(),
+                        medicos.size(), salas.size());
+            } catch (IOException | RuntimeException e) {
+                tramo.deshacer(e);
+                throw e;
+            }
+        }
+    }
+
+    private static <T> T primero(List<T> resultados) {
+        return resultados.isEmpty() ? null : resultados.get(0);
+    }
+
+    // Transacción en curso con su evento JFR, uno por cada commit
+    private static class Tramo {
+        private final StatelessSession sesion;
+        private Transaction transaccion;
+        private EventoTransaccionJpa evento;
+        private int filas;
+
+        Tramo(StatelessSession sesion) {
+            this.sesion = sesion;
+            abrir();
+        }
+
+        void abrir() {
+            filas = 0;
+            evento = new EventoTransaccionJpa("CargadorCitasMasivo.cargar");
+            transaccion = sesion.beginTransaction();
+        }
+
+        void confirmar() {
+            transaccion.commit();
+            evento.setEntidades(filas);
+            evento.confirmada();
+            evento.terminar();
+        }
+
+        void deshacer(Exception e) {
+            if (transaccion.isActive()) {
+                transaccion.rollback();
+            }
+            evento.error(e);
+            evento.terminar();
+        }
+    }
+
+    // Mapa de solo lectura que el parser usa como los de cargarCitas; get() consulta la base una sola
+    // vez por clave. Lo que devuelve queda desasociado: solo sirve para leer datos y como referencia
+    private static class Buscador<T> extends AbstractMap<String, T> {
+        private final Map<String, T> encontrados = new HashMap<>();
+        private final Function<String, T> consulta;
+
+        Buscador(Function<String, T> consulta) {
+            this.consulta = consulta;
+        }
+
+        @Override
+        public T get(Object clave) {
+            String texto = (String) clave;
+            T entidad = encontrados.get(texto);
+            if (entidad == null && !encontrados.containsKey(texto)) {
+                entidad = consulta.apply(texto);
+                encontrados.put(texto, entidad);
+            }
+            return entidad;
+        }
+
+        @Override
+        public Set<Entry<String, T>> entrySet() {
+            return encontrados.entrySet();
+        }
+    }
+
+    @Getter
+    @ToString
+    public static class Resultado {
+        private final ReporteImportacion reporte;
+        private final long duracionNanos;
+        // Claves distintas buscadas en la base, incluidas las que no existían
+        private final int pacientesBuscados;
+        private final int medicosBuscados;
+        private final int salasBuscadas;
+
+        Resultado(ReporteImportacion reporte, long duracionNanos, int pacientesBuscados, int medicosBuscados,
+                  int salasBuscadas) {
+            this.reporte = reporte;
+            this.duracionNanos = duracionNanos;
+            this.pacientesBuscados = pacientesBuscados;
+            this.medicosBuscados = medicosBuscados;
+            this.salasBuscadas = salasBuscadas;
+        }
+
+        // Filas leídas del archivo (aceptadas y rechazadas) por segundo
+        public double getFilasPorSegundo() {
+            return duracionNanos == 0 ? 0 : reporte.getFilasLeidas() * 1e9 / duracionNanos;
+        }
+    }
+}
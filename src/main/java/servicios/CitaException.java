@@ -2,13 +2,27 @@ package servicios;
 
 
 public class CitaException extends Exception {
+    private final MotivoRechazo motivo;
 
     public CitaException(String message) {
-        super(message);
+        this(MotivoRechazo.OTRO, message);
     }
 
     public CitaException(String message, Throwable cause) {
+        this(MotivoRechazo.OTRO, message, cause);
+    }
+
+    public CitaException(MotivoRechazo motivo, String message) {
+        super(message);
+        this.motivo = motivo;
+    }
+
+    public CitaException(MotivoRechazo motivo, String message, Throwable cause) {
         super(message, cause);
+        this.motivo = motivo;
     }
-}
 
+    public MotivoRechazo getMotivo() {
+        return motivo;
+    }
+}
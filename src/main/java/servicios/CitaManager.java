@@ -5,38 +5,196 @@ import entidades.*;
 
 import java.io.*;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 
 public class CitaManager implements CitaService {
-    private final List<Cita> citas = new ArrayList<>();
+    public static final Duration DURACION_CITA_POR_DEFECTO = Duration.ofHours(2);
+
+    private final Duration duracionCita;
+    private final BloqueoRecursos bloqueos = new BloqueoRecursos(Runtime.getRuntime().availableProcessors() * 16);
+    // Las listas y agendas de cada indice solo se tocan con la franja de su recurso tomada
+    private final Queue<Cita> citas = new ConcurrentLinkedQueue<>();
     private final Map<Paciente, List<Cita>> citasPorPaciente = new ConcurrentHashMap<>();
-    private final Map<Medico, List<Cita>> citasPorMedico = new ConcurrentHashMap<>();
-    private final Map<Sala, List<Cita>> citasPorSala = new ConcurrentHashMap<>();
+    private final Map<Medico, AgendaRecurso> citasPorMedico = new ConcurrentHashMap<>();
+    private final Map<Sala, AgendaRecurso> citasPorSala = new ConcurrentHashMap<>();
+    // Se abre y se cierra con todas las franjas tomadas; null si no hay journal
+    private volatile JournalCitas journal;
+    private ScheduledExecutorService compactador;
+    private final MetricasCitas metricas;
+
+    public CitaManager() {
+        this(DURACION_CITA_POR_DEFECTO);
+    }
+
+    public CitaManager(Duration duracionCita) {
+        this(duracionCita, new MetricasCitas());
+    }
+
+    public CitaManager(Duration duracionCita, MetricasCitas metricas) {
+        if (duracionCita == null || duracionCita.isNegative() || duracionCita.isZero()) {
+            throw new IllegalArgumentException("La duración de la cita debe ser mayor que cero");
+        }
+        this.duracionCita = duracionCita;
+        this.metricas = Objects.requireNonNull(metricas, "Las métricas no pueden ser nulas");
+    }
+
+    public Duration getDuracionCita() {
+        return duracionCita;
+    }
+
+    public MetricasCitas getMetricas() {
+        return metricas;
+    }
 
     @Override
     public Cita programarCita(Paciente paciente, Medico medico, Sala sala,
                               LocalDateTime fechaHora, BigDecimal costo) throws CitaException {
+        long inicioNanos = System.nanoTime();
+        EventoReserva evento = new EventoReserva();
+        evento.begin();
+        String resultado = "ERROR";
+        try {
+            validarCita(fechaHora, costo);
+
+            Cita cita;
+            // Chequeo y alta atomicos sobre médico, sala y paciente
+            try (BloqueoRecursos.Bloqueo bloqueo = bloqueos.adquirir(medico, sala, paciente)) {
+                verificarDisponibilidad(medico, sala, fechaHora);
+                cita = registrarCita(paciente, medico, sala, fechaHora, costo);
+            }
+            // La espera del disco queda fuera del lock, asi las reservas concurrentes comparten el mismo force
+            sincronizarAltas(List.of(cita));
+            resultado = EventoReserva.ACEPTADA;
+            return cita;
+        } catch (CitaException e) {
+            metricas.rechazo(e.getMotivo());
+            resultado = e.getMotivo().name();
+            throw e;
+        } catch (RuntimeException e) {
+            metricas.error(MetricasCitas.Operacion.PROGRAMAR_CITA);
+            resultado = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            metricas.registrar(MetricasCitas.Operacion.PROGRAMAR_CITA, inicioNanos);
+            evento.terminar(paciente, medico, sala, fechaHora, resultado);
+        }
+    }
+
+    @Override
+    public List<ResultadoCita> programarCitas(List<SolicitudCita> solicitudes) {
+        long inicioNanos = System.nanoTime();
+        ResultadoCita[] resultados = new ResultadoCita[solicitudes.size()];
+        List<Integer> pendientes = new ArrayList<>(solicitudes.size());
+
+        // Validaciones que no dependen de otras citas, fuera del lock
+        for (int i = 0; i < solicitudes.size(); i++) {
+            SolicitudCita solicitud = solicitudes.get(i);
+            try {
+                validarSolicitud(solicitud);
+                pendientes.add(i);
+            } catch (CitaException e) {
+                resultados[i] = ResultadoCita.rechazada(solicitud, e);
+            }
+        }
+
+        // Se toman solo las franjas de los recursos del lote, asi las reservas y consultas de otros recursos
+        // siguen mientras tanto. Las solicitudes se procesan en el orden del lote: ante dos en conflicto
+        // gana la que viene primero.
+        Object[] recursos = new Object[pendientes.size() * 3];
+        int r = 0;
+        for (int i : pendientes) {
+            SolicitudCita solicitud = solicitudes.get(i);
+            recursos[r++] = solicitud.getMedico();
+            recursos[r++] = solicitud.getSala();
+            recursos[r++] = solicitud.getPaciente();
+        }
+
+        List<Cita> altas = new ArrayList<>();
+        try {
+            try (BloqueoRecursos.Bloqueo bloqueo = bloqueos.adquirir(recursos)) {
+                for (int i : pendientes) {
+                    SolicitudCita solicitud = solicitudes.get(i);
+                    try {
+                        verificarDisponibilidad(solicitud.getMedico(), solicitud.getSala(), solicitud.getFechaHora());
+                        Cita cita = registrarCita(solicitud.getPaciente(), solicitud.getMedico(), solicitud.getSala(),
+                                solicitud.getFechaHora(), solicitud.getCosto());
+                        altas.add(cita);
+                        resultados[i] = ResultadoCita.aceptada(solicitud, cita);
+                    } catch (CitaException e) {
+                        resultados[i] = ResultadoCita.rechazada(solicitud, e);
+                    }
+                }
+            }
+            sincronizarAltas(altas);
+        } catch (RuntimeException e) {
+            metricas.error(MetricasCitas.Operacion.PROGRAMAR_LOTE);
+            metricas.registrar(MetricasCitas.Operacion.PROGRAMAR_LOTE, inicioNanos);
+            throw e;
+        }
+
+        for (ResultadoCita resultado : resultados) {
+            if (!resultado.isAceptada()) {
+                metricas.rechazo(resultado.getMotivo());
+            }
+        }
+        metricas.registrar(MetricasCitas.Operacion.PROGRAMAR_LOTE, inicioNanos);
+        return Arrays.asList(resultados);
+    }
 
-        validarCita(fechaHora, costo);
+    static void validarSolicitud(SolicitudCita solicitud) throws CitaException {
+        if (solicitud == null || solicitud.getPaciente() == null || solicitud.getMedico() == null
+                || solicitud.getSala() == null || solicitud.getFechaHora() == null || solicitud.getCosto() == null) {
+            throw new CitaException(MotivoRechazo.DATOS_INCOMPLETOS, "La solicitud de cita está incompleta.");
+        }
+        validarCita(solicitud.getFechaHora(), solicitud.getCosto());
+    }
 
+    private void verificarDisponibilidad(Medico medico, Sala sala, LocalDateTime fechaHora) throws CitaException {
         if (!esMedicoDisponible(medico, fechaHora)) {
-            throw new CitaException("El médico no está disponible en la fecha y hora solicitadas.");
+            throw new CitaException(MotivoRechazo.MEDICO_OCUPADO,
+                    "El médico no está disponible en la fecha y hora solicitadas.");
         }
 
         if (!esSalaDisponible(sala, fechaHora)) {
-            throw new CitaException("La sala no está disponible en la fecha y hora solicitadas.");
+            throw new CitaException(MotivoRechazo.SALA_OCUPADA,
+                    "La sala no está disponible en la fecha y hora solicitadas.");
         }
 
+        validarEspecialidad(medico, sala);
+    }
+
+    static void validarEspecialidad(Medico medico, Sala sala) throws CitaException {
         if (!medico.getEspecialidad().equals(sala.getDepartamento().getEspecialidad())) {
-            throw new CitaException("La especialidad del médico no coincide con el departamento de la sala.");
+            throw new CitaException(MotivoRechazo.ESPECIALIDAD_INCOMPATIBLE,
+                    "La especialidad del médico no coincide con el departamento de la sala.");
         }
+    }
 
+    private Cita registrarCita(Paciente paciente, Medico medico, Sala sala,
+                               LocalDateTime fechaHora, BigDecimal costo) throws CitaException {
         Cita cita = Cita.builder()
                 .paciente(paciente)
                 .medico(medico)
@@ -45,6 +203,12 @@ public class CitaManager implements CitaService {
                 .costo(costo)
                 .build();
 
+        // Primero al journal: si falla, la cita no queda registrada
+        JournalCitas actual = journal;
+        if (actual != null) {
+            actual.anotarProgramada(cita);
+        }
+
         citas.add(cita);
 
         actualizarIndicePaciente(paciente, cita);
@@ -58,104 +222,244 @@ public class CitaManager implements CitaService {
         return cita;
     }
 
-
-    private void validarCita(LocalDateTime fechaHora, BigDecimal costo) throws CitaException {
+    static void validarCita(LocalDateTime fechaHora, BigDecimal costo) throws CitaException {
         if (fechaHora.isBefore(LocalDateTime.now())) {
-            throw new CitaException("No se puede programar una cita en el pasado.");
+            throw new CitaException(MotivoRechazo.FECHA_PASADA, "No se puede programar una cita en el pasado.");
         }
 
         if (costo.compareTo(BigDecimal.ZERO) <= 0) {
-            throw new CitaException("El costo debe ser mayor que cero.");
+            throw new CitaException(MotivoRechazo.COSTO_INVALIDO, "El costo debe ser mayor que cero.");
         }
     }
 
     private boolean esMedicoDisponible(Medico medico, LocalDateTime fechaHora) {
-        List<Cita> citasExistentes = citasPorMedico.get(medico);
-        if (citasExistentes != null) {
-            for (Cita citaExistente : citasExistentes) {
-                if (Math.abs(citaExistente.getFechaHora().compareTo(fechaHora)) < 2) { // 2 horas de diferencia
-                    return false;
-                }
-            }
-        }
-        return true;
+        AgendaRecurso agenda = citasPorMedico.get(medico);
+        return agenda == null || agenda.estaLibre(fechaHora);
     }
 
     private boolean esSalaDisponible(Sala sala, LocalDateTime fechaHora) {
-        List<Cita> citasExistentes = citasPorSala.get(sala);
-        if (citasExistentes != null) {
-            for (Cita citaExistente : citasExistentes) {
-                if (Math.abs(citaExistente.getFechaHora().compareTo(fechaHora)) < 2) { // 2 horas de diferencia
-                    return false;
-                }
-            }
-        }
-        return true;
+        AgendaRecurso agenda = citasPorSala.get(sala);
+        return agenda == null || agenda.estaLibre(fechaHora);
     }
 
     private void actualizarIndicePaciente(Paciente paciente, Cita cita) {
-        List<Cita> citasPaciente = citasPorPaciente.get(paciente);
-        if (citasPaciente == null) {
-            citasPaciente = new ArrayList<>();
-            citasPorPaciente.put(paciente, citasPaciente);
-        }
-        citasPaciente.add(cita);
+        citasPorPaciente.computeIfAbsent(paciente, p -> new ArrayList<>()).add(cita);
     }
 
     private void actualizarIndiceMedico(Medico medico, Cita cita) {
-        List<Cita> citasMedico = citasPorMedico.get(medico);
-        if (citasMedico == null) {
-            citasMedico = new ArrayList<>();
-            citasPorMedico.put(medico, citasMedico);
-        }
-        citasMedico.add(cita);
+        citasPorMedico.computeIfAbsent(medico, m -> new AgendaRecurso(duracionCita)).agregar(cita);
     }
 
     private void actualizarIndiceSala(Sala sala, Cita cita) {
-        List<Cita> citasSala = citasPorSala.get(sala);
-        if (citasSala == null) {
-            citasSala = new ArrayList<>();
-            citasPorSala.put(sala, citasSala);
+        citasPorSala.computeIfAbsent(sala, s -> new AgendaRecurso(duracionCita)).agregar(cita);
+    }
+
+    // Cambia el estado de una cita registrada en este manager. Con el journal abierto, los cambios de
+    // estado deben pasar por aca y no por Cita.setEstado para sobrevivir a un reinicio.
+    public void cambiarEstado(Cita cita, EstadoCita estado) throws CitaException {
+        long inicioNanos = System.nanoTime();
+        EstadoCita anterior;
+        try {
+            if (cita == null || estado == null) {
+                throw new CitaException(MotivoRechazo.DATOS_INCOMPLETOS, "La cita y el estado no pueden ser nulos.");
+            }
+            try (BloqueoRecursos.Bloqueo bloqueo = bloqueos.adquirir(cita.getMedico(), cita.getSala(), cita.getPaciente())) {
+                AgendaRecurso agenda = citasPorMedico.get(cita.getMedico());
+                if (agenda == null || agenda.get(cita.getFechaHora()) != cita) {
+                    throw new CitaException(MotivoRechazo.NO_ENCONTRADA, "La cita no está registrada.");
+                }
+                JournalCitas actual = journal;
+                if (actual != null) {
+                    actual.anotarCambioEstado(cita, estado);
+                }
+                anterior = cita.getEstado();
+                cita.setEstado(estado);
+            }
+            try {
+                sincronizarJournal();
+            } catch (UncheckedIOException e) {
+                try (BloqueoRecursos.Bloqueo bloqueo = bloqueos.adquirir(cita.getMedico(), cita.getSala(), cita.getPaciente())) {
+                    if (cita.getEstado() == estado) {
+                        cita.setEstado(anterior);
+                    }
+                }
+                throw e;
+            }
+        } catch (CitaException e) {
+            metricas.rechazo(e.getMotivo());
+            throw e;
+        } catch (RuntimeException e) {
+            metricas.error(MetricasCitas.Operacion.CAMBIAR_ESTADO);
+            throw e;
+        } finally {
+            metricas.registrar(MetricasCitas.Operacion.CAMBIAR_ESTADO, inicioNanos);
         }
-        citasSala.add(cita);
     }
 
     @Override
     public List<Cita> getCitasPorPaciente(Paciente paciente) {
-        List<Cita> citasPaciente = citasPorPaciente.get(paciente);
-        if (citasPaciente != null) {
-            return Collections.unmodifiableList(citasPaciente);
-        } else {
-            return Collections.emptyList();
+        long inicioNanos = System.nanoTime();
+        try {
+            try (BloqueoRecursos.Bloqueo bloqueo = bloqueos.adquirir(paciente)) {
+                List<Cita> citasPaciente = citasPorPaciente.get(paciente);
+                if (citasPaciente != null) {
+                    return Collections.unmodifiableList(new ArrayList<>(citasPaciente));
+                } else {
+                    return Collections.emptyList();
+                }
+            }
+        } finally {
+            metricas.registrar(MetricasCitas.Operacion.CONSULTA, inicioNanos);
         }
     }
 
     @Override
     public List<Cita> getCitasPorMedico(Medico medico) {
-        List<Cita> citasMedico = citasPorMedico.get(medico);
-        if (citasMedico != null) {
-            return Collections.unmodifiableList(citasMedico);
-        } else {
-            return Collections.emptyList();
+        long inicioNanos = System.nanoTime();
+        try {
+            try (BloqueoRecursos.Bloqueo bloqueo = bloqueos.adquirir(medico)) {
+                AgendaRecurso agenda = citasPorMedico.get(medico);
+                if (agenda != null) {
+                    return Collections.unmodifiableList(agenda.getCitas());
+                } else {
+                    return Collections.emptyList();
+                }
+            }
+        } finally {
+            metricas.registrar(MetricasCitas.Operacion.CONSULTA, inicioNanos);
+        }
+    }
+
+    @Override
+    public List<Cita> getCitasPorMedico(Medico medico, LocalDateTime desde, LocalDateTime hasta) {
+        long inicioNanos = System.nanoTime();
+        try {
+            try (BloqueoRecursos.Bloqueo bloqueo = bloqueos.adquirir(medico)) {
+                AgendaRecurso agenda = citasPorMedico.get(medico);
+                if (agenda != null) {
+                    return Collections.unmodifiableList(agenda.getCitas(desde, hasta));
+                } else {
+                    return Collections.emptyList();
+                }
+            }
+        } finally {
+            metricas.registrar(MetricasCitas.Operacion.CONSULTA, inicioNanos);
         }
     }
 
     @Override
     public List<Cita> getCitasPorSala(Sala sala) {
-        List<Cita> citasSala = citasPorSala.get(sala);
-        if (citasSala != null) {
-            return Collections.unmodifiableList(citasSala);
-        } else {
-            return Collections.emptyList();
+        long inicioNanos = System.nanoTime();
+        try {
+            try (BloqueoRecursos.Bloqueo bloqueo = bloqueos.adquirir(sala)) {
+                AgendaRecurso agenda = citasPorSala.get(sala);
+                if (agenda != null) {
+                    return Collections.unmodifiableList(agenda.getCitas());
+                } else {
+                    return Collections.emptyList();
+                }
+            }
+        } finally {
+            metricas.registrar(MetricasCitas.Operacion.CONSULTA, inicioNanos);
+        }
+    }
+
+    @Override
+    public List<Cita> getCitasPorSala(Sala sala, LocalDateTime desde, LocalDateTime hasta) {
+        long inicioNanos = System.nanoTime();
+        try {
+            try (BloqueoRecursos.Bloqueo bloqueo = bloqueos.adquirir(sala)) {
+                AgendaRecurso agenda = citasPorSala.get(sala);
+                if (agenda != null) {
+                    return Collections.unmodifiableList(agenda.getCitas(desde, hasta));
+                } else {
+                    return Collections.emptyList();
+                }
+            }
+        } finally {
+            metricas.registrar(MetricasCitas.Operacion.CONSULTA, inicioNanos);
+        }
+    }
+
+    // Primeros turnos en los que algún médico y alguna sala de la especialidad están libres a la vez.
+    // Cada par médico-sala aporta su próximo hueco común a una cola de prioridad ordenada por inicio.
+    public List<TurnoDisponible> buscarProximoTurno(Hospital hospital, EspecialidadMedica especialidad,
+                                                    LocalDateTime desde, Duration duracion, int cantidad) {
+        long inicioNanos = System.nanoTime();
+        try {
+            if (cantidad <= 0) {
+                throw new IllegalArgumentException("La cantidad de turnos debe ser mayor que cero");
+            }
+            Duration largo = duracion.compareTo(duracionCita) > 0 ? duracion : duracionCita;
+            LocalDateTime ahora = LocalDateTime.now();
+            LocalDateTime inicio = desde.isBefore(ahora) ? ahora : desde;
+
+            PriorityQueue<TurnoDisponible> candidatos = new PriorityQueue<>(
+                    Comparator.comparing(TurnoDisponible::getInicio));
+            // Set: un departamento puede figurar repetido en la lista del hospital
+            for (Departamento departamento : new LinkedHashSet<>(hospital.getDepartamentos())) {
+                if (departamento.getEspecialidad() != especialidad) {
+                    continue;
+                }
+                for (Medico medico : new LinkedHashSet<>(departamento.getMedicos())) {
+                    for (Sala sala : new LinkedHashSet<>(departamento.getSalas())) {
+                        candidatos.add(proximoTurnoComun(medico, sala, inicio, largo));
+                    }
+                }
+            }
+
+            List<TurnoDisponible> turnos = new ArrayList<>(cantidad);
+            while (turnos.size() < cantidad && !candidatos.isEmpty()) {
+                TurnoDisponible turno = candidatos.poll();
+                turnos.add(turno);
+                candidatos.add(proximoTurnoComun(turno.getMedico(), turno.getSala(), turno.getFin(), largo));
+            }
+            return turnos;
+        } finally {
+            metricas.registrar(MetricasCitas.Operacion.BUSCAR_TURNO, inicioNanos);
+        }
+    }
+
+    private TurnoDisponible proximoTurnoComun(Medico medico, Sala sala, LocalDateTime desde, Duration largo) {
+        LocalDateTime inicio = desde;
+        while (true) {
+            LocalDateTime libreMedico = proximoLibre(citasPorMedico, medico, inicio, largo);
+            LocalDateTime libreAmbos = proximoLibre(citasPorSala, sala, libreMedico, largo);
+            if (libreAmbos.equals(libreMedico)) {
+                return new TurnoDisponible(medico, sala, libreAmbos, libreAmbos.plus(largo));
+            }
+            inicio = libreAmbos;
+        }
+    }
+
+    private <K> LocalDateTime proximoLibre(Map<K, AgendaRecurso> indice, K recurso,
+                                           LocalDateTime desde, Duration largo) {
+        try (BloqueoRecursos.Bloqueo bloqueo = bloqueos.adquirir(recurso)) {
+            AgendaRecurso agenda = indice.get(recurso);
+            return agenda != null ? agenda.proximoLibre(desde, largo) : desde;
         }
     }
 
     @Override
     public void guardarCitas(String filename) throws IOException {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(filename))) {
-            for (Cita cita : citas) {
-                writer.println(cita.toCsvString());
+        long inicioNanos = System.nanoTime();
+        EventoArchivoCitas evento = new EventoArchivoCitas(MetricasCitas.Operacion.GUARDAR_CITAS, filename);
+        try {
+            try (PrintWriter writer = new PrintWriter(new FileWriter(filename, StandardCharsets.UTF_8))) {
+                long filas = 0;
+                for (Cita cita : citas) {
+                    writer.println(cita.toCsvString());
+                    filas++;
+                }
+                evento.filas(filas, 0);
             }
+        } catch (IOException | RuntimeException e) {
+            metricas.error(MetricasCitas.Operacion.GUARDAR_CITAS);
+            evento.error(e);
+            throw e;
+        } finally {
+            metricas.registrar(MetricasCitas.Operacion.GUARDAR_CITAS, inicioNanos);
+            evento.terminar();
         }
     }
 
@@ -163,26 +467,383 @@ public class CitaManager implements CitaService {
     public void cargarCitas(String filename, Map<String, Paciente> pacientes,
                             Map<String, Medico> medicos, Map<String, Sala> salas)
             throws IOException, ClassNotFoundException, CitaException {
-        citas.clear();
-        citasPorPaciente.clear();
-        citasPorMedico.clear();
-        citasPorSala.clear();
+        ReporteImportacion reporte = importarCitas(filename, pacientes, medicos, salas);
+        for (RechazoImportacion rechazo : reporte.getRechazos()) {
+            System.err.println("Error al cargar cita desde CSV, línea " + rechazo.getNumeroLinea()
+                    + " - " + rechazo.getMotivo());
+        }
+    }
+
+    // Reemplaza las citas por las del archivo. Las filas inválidas o en conflicto se informan en el
+    // reporte y la carga sigue con la siguiente.
+    public synchronized ReporteImportacion importarCitas(String filename, Map<String, Paciente> pacientes,
+                                           Map<String, Medico> medicos, Map<String, Sala> salas)
+            throws IOException {
+        long inicioNanos = System.nanoTime();
+        EventoArchivoCitas evento = new EventoArchivoCitas(MetricasCitas.Operacion.CARGAR_CITAS, filename);
+        try {
+            Path archivo = Path.of(filename);
+            if (!Files.isReadable(archivo)) {
+                throw new FileNotFoundException(filename);
+            }
+
+            ReporteImportacion reporte;
+            // La carga reemplaza todo el contenido, asi que frena cualquier reserva en curso
+            try (BloqueoRecursos.Bloqueo bloqueo = bloqueos.adquirirTodos()) {
+                vaciarIndices();
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
                 try {
-                    Cita cita = Cita.fromCsvString(line, pacientes, medicos, salas);
-                    citas.add(cita);
-                    actualizarIndicePaciente(cita.getPaciente(), cita);
-                    actualizarIndiceMedico(cita.getMedico(), cita);
-                    actualizarIndiceSala(cita.getSala(), cita);
-                } catch (CitaException e) {
-                    System.err.println("Error al cargar cita desde CSV: " + line + " - " + e.getMessage());
-                    throw e;
+                    reporte = ImportadorCitasCsv.importar(archivo, new ParserCitaCsv(pacientes, medicos, salas),
+                            this::indexarCargada);
+                } finally {
+                    plegarEnJournal();
                 }
             }
+            metricas.importacion(reporte);
+            evento.filas(reporte);
+            return reporte;
+        } catch (IOException | RuntimeException e) {
+            metricas.error(MetricasCitas.Operacion.CARGAR_CITAS);
+            evento.error(e);
+            throw e;
+        } finally {
+            metricas.registrar(MetricasCitas.Operacion.CARGAR_CITAS, inicioNanos);
+            evento.terminar();
         }
     }
-}
 
+    public ReporteImportacion importarCitasEnParalelo(String filename, Map<String, Paciente> pacientes,
+                                                     Map<String, Medico> medicos, Map<String, Sala> salas)
+            throws IOException {
+        return importarCitasEnParalelo(filename, pacientes, medicos, salas, ForkJoinPool.commonPool());
+    }
+
+    // Igual que importarCitas, pero el parseo se reparte en bloques entre los hilos del pool.
+    // El volcado a los índices sigue el orden del archivo, asi que el resultado es el mismo.
+    public synchronized ReporteImportacion importarCitasEnParalelo(String filename, Map<String, Paciente> pacientes,
+                                                     Map<String, Medico> medicos, Map<String, Sala> salas,
+                                                     ForkJoinPool pool) throws IOException {
+        long inicioNanos = System.nanoTime();
+        EventoArchivoCitas evento = new EventoArchivoCitas(MetricasCitas.Operacion.CARGAR_CITAS, filename);
+        try {
+            Path archivo = Path.of(filename);
+            if (!Files.isReadable(archivo)) {
+                throw new FileNotFoundException(filename);
+            }
+
+            ReporteImportacion reporte;
+            try (BloqueoRecursos.Bloqueo bloqueo = bloqueos.adquirirTodos()) {
+                vaciarIndices();
+
+                try {
+                    reporte = ImportadorCitasCsv.importarEnParalelo(archivo,
+                            () -> new ParserCitaCsv(pacientes, medicos, salas), this::indexarCargada, pool);
+                } finally {
+                    plegarEnJournal();
+                }
+            }
+            metricas.importacion(reporte);
+            evento.filas(reporte);
+            return reporte;
+        } catch (IOException | RuntimeException e) {
+            metricas.error(MetricasCitas.Operacion.CARGAR_CITAS);
+            evento.error(e);
+            throw e;
+        } finally {
+            metricas.registrar(MetricasCitas.Operacion.CARGAR_CITAS, inicioNanos);
+            evento.terminar();
+        }
+    }
+
+    // Snapshot binario (ver SnapshotCitas): mucho más chico y rápido de recargar que el CSV
+    public void guardarSnapshot(String filename) throws IOException {
+        long inicioNanos = System.nanoTime();
+        EventoArchivoCitas evento = new EventoArchivoCitas(MetricasCitas.Operacion.GUARDAR_SNAPSHOT, filename);
+        try {
+            List<Cita> copia;
+            // Copia consistente: ninguna reserva queda a medio registrar
+            try (BloqueoRecursos.Bloqueo bloqueo = bloqueos.adquirirTodos()) {
+                copia = new ArrayList<>(citas);
+            }
+            SnapshotCitas.escribir(Path.of(filename), copia);
+            evento.filas(copia.size(), 0);
+        } catch (IOException | RuntimeException e) {
+            metricas.error(MetricasCitas.Operacion.GUARDAR_SNAPSHOT);
+            evento.error(e);
+            throw e;
+        } finally {
+            metricas.registrar(MetricasCitas.Operacion.GUARDAR_SNAPSHOT, inicioNanos);
+            evento.terminar();
+        }
+    }
+
+    // Reemplaza las citas por las del snapshot. A diferencia del CSV no se rechazan las citas pasadas:
+    // es una restauración del estado guardado, no una carga de citas nuevas.
+    public synchronized ReporteImportacion cargarSnapshot(String filename, Map<String, Paciente> pacientes,
+                                             Map<String, Medico> medicos, Map<String, Sala> salas)
+            throws IOException {
+        long inicioNanos = System.nanoTime();
+        EventoArchivoCitas evento = new EventoArchivoCitas(MetricasCitas.Operacion.CARGAR_SNAPSHOT, filename);
+        try {
+            Path archivo = Path.of(filename);
+            if (!Files.isReadable(archivo)) {
+                throw new FileNotFoundException(filename);
+            }
+            // Un snapshot inválido se rechaza antes de vaciar las citas actuales
+            ByteBuffer snapshot = SnapshotCitas.abrir(archivo);
+
+            ReporteImportacion reporte;
+            try (BloqueoRecursos.Bloqueo bloqueo = bloqueos.adquirirTodos()) {
+                vaciarIndices();
+                try {
+                    reporte = SnapshotCitas.leer(snapshot, pacientes, medicos, salas, this::indexarCargada);
+                } finally {
+                    plegarEnJournal();
+                }
+            }
+            metricas.importacion(reporte);
+            evento.filas(reporte);
+            return reporte;
+        } catch (IOException | RuntimeException e) {
+            metricas.error(MetricasCitas.Operacion.CARGAR_SNAPSHOT);
+            evento.error(e);
+            throw e;
+        } finally {
+            metricas.registrar(MetricasCitas.Operacion.CARGAR_SNAPSHOT, inicioNanos);
+            evento.terminar();
+        }
+    }
+
+    // Abre el journal del directorio y reemplaza las citas en memoria por las recuperadas (último snapshot
+    // más los segmentos posteriores). Desde ahi anota cada alta y cambio de estado. Si intervaloCompactacion
+    // no es null, cada ese tiempo el journal se pliega en un snapshot nuevo.
+    public synchronized ReporteImportacion abrirJournal(String directorio, Map<String, Paciente> pacientes,
+                                          Map<String, Medico> medicos, Map<String, Sala> salas,
+                                          Duration intervaloCompactacion) throws IOException {
+        Path carpeta = Path.of(directorio);
+        Files.createDirectories(carpeta);
+        ReporteImportacion reporte = new ReporteImportacion();
+
+        try (BloqueoRecursos.Bloqueo bloqueo = bloqueos.adquirirTodos()) {
+            if (journal != null) {
+                throw new IllegalStateException("El journal ya está abierto");
+            }
+            FileLock cerrojo = JournalCitas.bloquearDirectorio(carpeta);
+            try {
+                journal = recuperar(carpeta, cerrojo, pacientes, medicos, salas, reporte);
+            } catch (IOException | RuntimeException e) {
+                cerrojo.channel().close();
+                throw e;
+            }
+        }
+
+        if (intervaloCompactacion != null) {
+            compactador = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread hilo = new Thread(r, "compactador-citas");
+                hilo.setDaemon(true);
+                return hilo;
+            });
+            long periodo = intervaloCompactacion.toMillis();
+            compactador.scheduleWithFixedDelay(() -> {
+                try {
+                    compactar(true);
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("Error al compactar el journal de citas: " + e.getMessage());
+                }
+            }, periodo, periodo, TimeUnit.MILLISECONDS);
+        }
+        return reporte;
+    }
+
+    // Carga el último snapshot y reproduce los segmentos posteriores; se llama con todas las franjas tomadas
+    private JournalCitas recuperar(Path carpeta, FileLock cerrojo, Map<String, Paciente> pacientes,
+                                   Map<String, Medico> medicos, Map<String, Sala> salas,
+                                   ReporteImportacion reporte) throws IOException {
+        long generacion = JournalCitas.ultimoSnapshot(carpeta);
+        ByteBuffer snapshot = generacion >= 0
+                ? SnapshotCitas.abrir(JournalCitas.rutaSnapshot(carpeta, generacion)) : null;
+
+        vaciarIndices();
+        if (snapshot != null) {
+            reporte.agregar(SnapshotCitas.leer(snapshot, pacientes, medicos, salas, this::indexarCargada),
+                    JournalCitas.rutaSnapshot(carpeta, generacion).getFileName().toString());
+        }
+
+        JournalCitas.DestinoJournal destino = new JournalCitas.DestinoJournal() {
+            @Override
+            public void programada(Cita cita) throws CitaException {
+                indexarCargada(cita);
+            }
+
+            @Override
+            public void cambioEstado(Medico medico, LocalDateTime fechaHora, EstadoCita estado)
+                    throws CitaException {
+                AgendaRecurso agenda = citasPorMedico.get(medico);
+                Cita cita = agenda != null ? agenda.get(fechaHora) : null;
+                if (cita == null) {
+                    throw new CitaException(MotivoRechazo.NO_ENCONTRADA, "Cita no encontrada para el cambio de estado: "
+                            + medico.getDni() + " " + fechaHora);
+                }
+                cita.setEstado(estado);
+            }
+        };
+
+        // Un registro cortado o corrupto corta la reproducción: lo que sigue puede depender de él
+        boolean completo = true;
+        for (Path segmento : JournalCitas.segmentosDesde(carpeta, Math.max(generacion, 0))) {
+            generacion = Math.max(generacion, JournalCitas.generacion(segmento));
+            if (completo) {
+                ReporteImportacion parcial = new ReporteImportacion();
+                completo = JournalCitas.reproducir(segmento, pacientes, medicos, salas, destino, parcial);
+                reporte.agregar(parcial, segmento.getFileName().toString());
+            }
+        }
+
+        JournalCitas nuevo = new JournalCitas(carpeta, cerrojo, generacion + 1);
+        // Tras un corte se guarda enseguida el estado recuperado, asi el registro roto no vuelve a leerse
+        if (!completo) {
+            try {
+                escribirSnapshot(nuevo, nuevo.getGeneracion(), new ArrayList<>(citas));
+            } catch (IOException e) {
+                nuevo.close();
+                throw e;
+            }
+        }
+        return nuevo;
+    }
+
+    // Pliega el journal en un snapshot: con todo bloqueado solo se copia la lista y se rota el segmento;
+    // el snapshot se escribe despues, mientras las reservas siguen en el segmento nuevo.
+    public void compactar() throws IOException {
+        compactar(false);
+    }
+
+    private synchronized void compactar(boolean soloSiHayCambios) throws IOException {
+        long inicioNanos = System.nanoTime();
+        try {
+            JournalCitas actual = journal;
+            if (actual == null) {
+                throw new IllegalStateException("El journal no está abierto");
+            }
+            List<Cita> copia;
+            long generacion;
+            try (BloqueoRecursos.Bloqueo bloqueo = bloqueos.adquirirTodos()) {
+                if (soloSiHayCambios && actual.segmentoVacio()) {
+                    return;
+                }
+                copia = new ArrayList<>(citas);
+                generacion = actual.rotar();
+            }
+            // Los cambios de estado posteriores a la copia tambien estan en el segmento nuevo, y
+            // reaplicarlos sobre el snapshot da el mismo resultado
+            escribirSnapshot(actual, generacion, copia);
+        } catch (IOException | RuntimeException e) {
+            metricas.error(MetricasCitas.Operacion.COMPACTAR_JOURNAL);
+            throw e;
+        } finally {
+            metricas.registrar(MetricasCitas.Operacion.COMPACTAR_JOURNAL, inicioNanos);
+        }
+    }
+
+    public synchronized void cerrarJournal() throws IOException {
+        if (compactador != null) {
+            compactador.shutdownNow();
+            compactador = null;
+        }
+        try (BloqueoRecursos.Bloqueo bloqueo = bloqueos.adquirirTodos()) {
+            if (journal != null) {
+                JournalCitas actual = journal;
+                journal = null;
+                actual.close();
+            }
+        }
+    }
+
+    private void escribirSnapshot(JournalCitas actual, long generacion, List<Cita> copia) throws IOException {
+        SnapshotCitas.escribir(JournalCitas.rutaSnapshot(actual.getDirectorio(), generacion), copia);
+        actual.borrarAnteriores(generacion);
+    }
+
+    // Con el journal abierto, una carga que reemplaza todo se guarda como snapshot antes de soltar las
+    // franjas: si se soltaran antes, una reserva posterior podría quedar en el journal encima del estado
+    // anterior a la carga, y tras una caída se reproduciría sobre ese estado sin haberse chequeado contra
+    // él. Tambien si la carga falla a medias: lo que se guarda es lo que quedó en memoria.
+    // Se llama con todas las franjas tomadas y con el monitor del manager, como compactar.
+    // Si el snapshot no se puede escribir el journal queda roto: lo que sigue falla al anotar.
+    private void plegarEnJournal() throws IOException {
+        JournalCitas actual = journal;
+        if (actual == null) {
+            return;
+        }
+        try {
+            long generacion = actual.rotar();
+            escribirSnapshot(actual, generacion, new ArrayList<>(citas));
+        } catch (IOException e) {
+            actual.romper(e);
+            throw e;
+        }
+    }
+
+    // Espera a que las altas esten en disco. Si el force falla se sacan de memoria y la operación falla,
+    // pero eso no garantiza que no hayan ocurrido: el registro puede haber llegado al segmento antes de
+    // la falla, y entonces una recuperación posterior (tras una caída o al reabrir el journal) vuelve a
+    // traer la cita. Lo mismo con el estado que restaura cambiarEstado. El journal queda roto y desde
+    // ahi toda operación que anota falla enseguida, hasta cerrarlo y volver a abrirlo.
+    private void sincronizarAltas(List<Cita> altas) {
+        try {
+            sincronizarJournal();
+        } catch (UncheckedIOException e) {
+            for (Cita cita : altas) {
+                deshacerAlta(cita);
+            }
+            throw e;
+        }
+    }
+
+    private void deshacerAlta(Cita cita) {
+        try (BloqueoRecursos.Bloqueo bloqueo = bloqueos.adquirir(cita.getMedico(), cita.getSala(), cita.getPaciente())) {
+            citas.remove(cita);
+            List<Cita> delPaciente = citasPorPaciente.get(cita.getPaciente());
+            if (delPaciente != null) {
+                delPaciente.remove(cita);
+            }
+            AgendaRecurso agendaMedico = citasPorMedico.get(cita.getMedico());
+            if (agendaMedico != null) {
+                agendaMedico.quitar(cita);
+            }
+            AgendaRecurso agendaSala = citasPorSala.get(cita.getSala());
+            if (agendaSala != null) {
+                agendaSala.quitar(cita);
+            }
+            cita.getPaciente().removeCita(cita);
+            cita.getMedico().removeCita(cita);
+            cita.getSala().removeCita(cita);
+        }
+    }
+
+    private void sincronizarJournal() {
+        JournalCitas actual = journal;
+        if (actual != null) {
+            try {
+                actual.sincronizar();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private void vaciarIndices() {
+        citas.clear();
+        citasPorPaciente.clear();
+        citasPorMedico.clear();
+        citasPorSala.clear();
+    }
+
+    private void indexarCargada(Cita cita) throws CitaException {
+        verificarDisponibilidad(cita.getMedico(), cita.getSala(), cita.getFechaHora());
+        citas.add(cita);
+        actualizarIndicePaciente(cita.getPaciente(), cita);
+        actualizarIndiceMedico(cita.getMedico(), cita);
+        actualizarIndiceSala(cita.getSala(), cita);
+    }
+}
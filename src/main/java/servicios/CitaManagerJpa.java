@@ -0,0 +1,454 @@
+package servicios;
+
+import entidades.*;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.TypedQuery;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+
+// Implementación de CitaService persistida en la base (unidad HospitalJPA_PU).
+// Las altas se hacen en lotes: cada 'tamanioLote' citas se hace flush y clear, y Hibernate
+// manda los INSERT agrupados segun hibernate.jdbc.batch_size.
+// Las citas devueltas quedan desasociadas y sus relaciones son referencias por id.
+public class CitaManagerJpa implements CitaService {
+    public static final int TAMANIO_LOTE_POR_DEFECTO = 50;
+    public static final int TAMANIO_PAGINA_MAXIMO = 500;
+
+    private static final String CONSULTA_CITAS =
+            "SELECT c FROM Cita c JOIN FETCH c.paciente p LEFT JOIN FETCH p.historiaClinica " +
+            "JOIN FETCH c.medico JOIN FETCH c.sala ";
+
+    private final EntityManagerFactory emf;
+    private final Duration duracionCita;
+    private final int tamanioLote;
+
+    public CitaManagerJpa(EntityManagerFactory emf) {
+        this(emf, CitaManager.DURACION_CITA_POR_DEFECTO, TAMANIO_LOTE_POR_DEFECTO);
+    }
+
+    public CitaManagerJpa(EntityManagerFactory emf, Duration duracionCita, int tamanioLote) {
+        this.emf = Objects.requireNonNull(emf, "El EntityManagerFactory no puede ser nulo");
+        if (duracionCita == null || duracionCita.isNegative() || duracionCita.isZero()) {
+            throw new IllegalArgumentException("La duración de la cita debe ser mayor que cero");
+        }
+        if (tamanioLote <= 0) {
+            throw new IllegalArgumentException("El tamaño de lote debe ser mayor que cero");
+        }
+        this.duracionCita = duracionCita;
+        this.tamanioLote = tamanioLote;
+    }
+
+    @Override
+    public Cita programarCita(Paciente paciente, Medico medico, Sala sala,
+                              LocalDateTime fechaHora, BigDecimal costo) throws CitaException {
+        SolicitudCita solicitud = SolicitudCita.builder()
+                .paciente(paciente)
+                .medico(medico)
+                .sala(sala)
+                .fechaHora(fechaHora)
+                .costo(costo)
+                .build();
+
+        ResultadoCita resultado = programarCitas(List.of(solicitud)).get(0);
+        if (!resultado.isAceptada()) {
+            throw new CitaException(resultado.getMotivo(), resultado.getMotivoRechazo());
+        }
+        return resultado.getCita();
+    }
+
+    @Override
+    public List<ResultadoCita> programarCitas(List<SolicitudCita> solicitudes) {
+        ResultadoCita[] resultados = new ResultadoCita[solicitudes.size()];
+        List<Integer> pendientes = new ArrayList<>(solicitudes.size());
+
+        for (int i = 0; i < solicitudes.size(); i++) {
+            SolicitudCita solicitud = solicitudes.get(i);
+            try {
+                CitaManager.validarSolicitud(solicitud);
+                validarPersistidas(solicitud);
+                pendientes.add(i);
+            } catch (CitaException e) {
+                resultados[i] = ResultadoCita.rechazada(solicitud, e);
+            }
+        }
+        if (pendientes.isEmpty()) {
+            return Arrays.asList(resultados);
+        }
+
+        EventoTransaccionJpa transaccion = new EventoTransaccionJpa("CitaManagerJpa.programarCitas");
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+
+            // Lock de filas en orden de id: otra transacción que reserve los mismos recursos espera a esta
+            Map<Long, AgendaRecurso> agendasMedico = cargarAgendas(em, Medico.class, "medico",
+                    pendientes, solicitudes, s -> s.getMedico().getId());
+            Map<Long, AgendaRecurso> agendasSala = cargarAgendas(em, Sala.class, "sala",
+                    pendientes, solicitudes, s -> s.getSala().getId());
+            // La especialidad se compara con lo que dice la base y no con las entidades recibidas, que
+            // pueden venir desasociadas y con el departamento de la sala sin cargar
+            Map<Long, EspecialidadMedica> especialidadesMedico = especialidades(em,
+                    "SELECT m.id, m.especialidad FROM Medico m WHERE m.id IN :ids", agendasMedico.keySet());
+            Map<Long, EspecialidadMedica> especialidadesSala = especialidades(em,
+                    "SELECT s.id, s.departamento.especialidad FROM Sala s WHERE s.id IN :ids", agendasSala.keySet());
+
+            // En el orden del lote, como CitaManager: ante dos solicitudes en conflicto gana la que viene primero
+            int enLote = 0;
+            long aceptadas = 0;
+            for (int i : pendientes) {
+                SolicitudCita solicitud = solicitudes.get(i);
+                AgendaRecurso agendaMedico = agendasMedico.get(solicitud.getMedico().getId());
+                AgendaRecurso agendaSala = agendasSala.get(solicitud.getSala().getId());
+                EspecialidadMedica especialidadMedico = especialidadesMedico.get(solicitud.getMedico().getId());
+                EspecialidadMedica especialidadSala = especialidadesSala.get(solicitud.getSala().getId());
+
+                if (especialidadMedico == null || especialidadSala == null) {
+                    resultados[i] = ResultadoCita.rechazada(solicitud, MotivoRechazo.DATOS_INCOMPLETOS,
+                            "El médico o la sala no existen en la base.");
+                    continue;
+                }
+                if (especialidadMedico != especialidadSala) {
+                    resultados[i] = ResultadoCita.rechazada(solicitud, MotivoRechazo.ESPECIALIDAD_INCOMPATIBLE,
+                            "La especialidad del médico no coincide con el departamento de la sala.");
+                    continue;
+                }
+                if (!agendaMedico.estaLibre(solicitud.getFechaHora())) {
+                    resultados[i] = ResultadoCita.rechazada(solicitud, MotivoRechazo.MEDICO_OCUPADO,
+                            "El médico no está disponible en la fecha y hora solicitadas.");
+                    continue;
+                }
+                if (!agendaSala.estaLibre(solicitud.getFechaHora())) {
+                    resultados[i] = ResultadoCita.rechazada(solicitud, MotivoRechazo.SALA_OCUPADA,
+                            "La sala no está disponible en la fecha y hora solicitadas.");
+                    continue;
+                }
+
+                Cita cita = nuevaCita(em, solicitud.getPaciente(), solicitud.getMedico(), solicitud.getSala(),
+                        solicitud.getFechaHora(), solicitud.getCosto());
+                em.persist(cita);
+                agendaMedico.agregar(cita);
+                agendaSala.agregar(cita);
+                resultados[i] = ResultadoCita.aceptada(solicitud, cita);
+                aceptadas++;
+
+                if (++enLote == tamanioLote) {
+                    em.flush();
+                    em.clear();
+                    enLote = 0;
+                }
+            }
+
+            em.getTransaction().commit();
+            transaccion.setEntidades(aceptadas);
+            transaccion.confirmada();
+        } catch (RuntimeException e) {
+            transaccion.error(e);
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            throw e;
+        } finally {
+            em.close();
+            transaccion.terminar();
+        }
+
+        return Arrays.asList(resultados);
+    }
+
+    private void validarPersistidas(SolicitudCita solicitud) throws CitaException {
+        if (solicitud.getPaciente().getId() == null || solicitud.getMedico().getId() == null
+                || solicitud.getSala().getId() == null) {
+            throw new CitaException(MotivoRechazo.DATOS_INCOMPLETOS,
+                    "El paciente, el médico y la sala deben estar persistidos antes de programar la cita.");
+        }
+    }
+
+    // Bloquea los recursos del lote y carga sus citas en la ventana de fechas que cubren las solicitudes
+    private Map<Long, AgendaRecurso> cargarAgendas(EntityManager em, Class<?> tipo, String relacion,
+                                                   List<Integer> pendientes, List<SolicitudCita> solicitudes,
+                                                   Function<SolicitudCita, Long> idRecurso) {
+        Map<Long, LocalDateTime[]> ventanas = new TreeMap<>();
+        for (int i : pendientes) {
+            SolicitudCita solicitud = solicitudes.get(i);
+            LocalDateTime[] ventana = ventanas.computeIfAbsent(idRecurso.apply(solicitud),
+                    id -> new LocalDateTime[]{solicitud.getFechaHora(), solicitud.getFechaHora()});
+            if (solicitud.getFechaHora().isBefore(ventana[0])) {
+                ventana[0] = solicitud.getFechaHora();
+            }
+            if (solicitud.getFechaHora().isAfter(ventana[1])) {
+                ventana[1] = solicitud.getFechaHora();
+            }
+        }
+
+        em.createQuery("SELECT r FROM " + tipo.getSimpleName() + " r WHERE r.id IN :ids ORDER BY r.id", tipo)
+                .setParameter("ids", ventanas.keySet())
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList();
+
+        TypedQuery<Cita> query = em.createQuery(
+                "SELECT c FROM Cita c WHERE c." + relacion + ".id = :id " +
+                        "AND c.fechaHora > :desde AND c.fechaHora < :hasta", Cita.class);
+
+        Map<Long, AgendaRecurso> agendas = new HashMap<>();
+        for (Map.Entry<Long, LocalDateTime[]> ventana : ventanas.entrySet()) {
+            AgendaRecurso agenda = new AgendaRecurso(duracionCita);
+            List<Cita> existentes = query
+                    .setParameter("id", ventana.getKey())
+                    .setParameter("desde", ventana.getValue()[0].minus(duracionCita))
+                    .setParameter("hasta", ventana.getValue()[1].plus(duracionCita))
+                    .getResultList();
+            for (Cita cita : existentes) {
+                agenda.agregar(cita);
+            }
+            agendas.put(ventana.getKey(), agenda);
+        }
+        return agendas;
+    }
+
+    private static Map<Long, EspecialidadMedica> especialidades(EntityManager em, String jpql, Set<Long> ids) {
+        Map<Long, EspecialidadMedica> especialidades = new HashMap<>();
+        for (Object[] fila : em.createQuery(jpql, Object[].class).setParameter("ids", ids).getResultList()) {
+            especialidades.put((Long) fila[0], (EspecialidadMedica) fila[1]);
+        }
+        return especialidades;
+    }
+
+    // Las relaciones se arman con referencias del contexto actual, sin volver a leer ni fusionar las entidades
+    private Cita nuevaCita(EntityManager em, Paciente paciente, Medico medico, Sala sala,
+                           LocalDateTime fechaHora, BigDecimal costo) {
+        return Cita.builder()
+                .paciente(em.getReference(Paciente.class, paciente.getId()))
+                .medico(em.getReference(Medico.class, medico.getId()))
+                .sala(em.getReference(Sala.class, sala.getId()))
+                .fechaHora(fechaHora)
+                .costo(costo)
+                .build();
+    }
+
+    @Override
+    public List<Cita> getCitasPorPaciente(Paciente paciente) {
+        return consultar(CONSULTA_CITAS + "WHERE c.paciente.id = :id ORDER BY c.fechaHora", paciente.getId());
+    }
+
+    @Override
+    public List<Cita> getCitasPorMedico(Medico medico) {
+        return consultar(CONSULTA_CITAS + "WHERE c.medico.id = :id ORDER BY c.fechaHora", medico.getId());
+    }
+
+    @Override
+    public List<Cita> getCitasPorMedico(Medico medico, LocalDateTime desde, LocalDateTime hasta) {
+        return consultarRango("medico", medico.getId(), desde, hasta);
+    }
+
+    @Override
+    public List<Cita> getCitasPorSala(Sala sala) {
+        return consultar(CONSULTA_CITAS + "WHERE c.sala.id = :id ORDER BY c.fechaHora", sala.getId());
+    }
+
+    @Override
+    public List<Cita> getCitasPorSala(Sala sala, LocalDateTime desde, LocalDateTime hasta) {
+        return consultarRango("sala", sala.getId(), desde, hasta);
+    }
+
+    // Listados paginados por keyset sobre (fechaHora, id), para agendas con años de historia. Cada
+    // página entra por los índices de Cita directo al cursor y lee 'tamanio' filas, asi que la página
+    // mil cuesta lo mismo que la primera (un OFFSET tendría que recorrer todas las anteriores).
+    // 'despuesDe' null pide la primera página; las siguientes se piden con PaginaCitas.getSiguiente().
+    public PaginaCitas paginaPorMedico(Medico medico, CursorCita despuesDe, int tamanio) {
+        return paginar("medico", medico.getId(), null, null, despuesDe, tamanio);
+    }
+
+    public PaginaCitas paginaPorPaciente(Paciente paciente, CursorCita despuesDe, int tamanio) {
+        return paginar("paciente", paciente.getId(), null, null, despuesDe, tamanio);
+    }
+
+    public PaginaCitas paginaPorSala(Sala sala, CursorCita despuesDe, int tamanio) {
+        return paginar("sala", sala.getId(), null, null, despuesDe, tamanio);
+    }
+
+    // Citas de todos los recursos que empiezan en [desde, hasta)
+    public PaginaCitas paginaPorFecha(LocalDateTime desde, LocalDateTime hasta, CursorCita despuesDe, int tamanio) {
+        return paginar(null, null, Objects.requireNonNull(desde, "La fecha desde no puede ser nula"),
+                Objects.requireNonNull(hasta, "La fecha hasta no puede ser nula"), despuesDe, tamanio);
+    }
+
+    private PaginaCitas paginar(String relacion, Long id, LocalDateTime desde, LocalDateTime hasta,
+                                CursorCita despuesDe, int tamanio) {
+        if (tamanio <= 0 || tamanio > TAMANIO_PAGINA_MAXIMO) {
+            throw new IllegalArgumentException("El tamaño de página debe estar entre 1 y " + TAMANIO_PAGINA_MAXIMO);
+        }
+        if ((relacion != null && id == null) || (desde != null && !desde.isBefore(hasta))) {
+            return new PaginaCitas(Collections.emptyList(), null);
+        }
+
+        List<String> condiciones = new ArrayList<>();
+        if (relacion != null) {
+            condiciones.add("c." + relacion + ".id = :id");
+        }
+        if (desde != null) {
+            condiciones.add("c.fechaHora >= :desde AND c.fechaHora < :hasta");
+        }
+        if (despuesDe != null) {
+            // El >= sobre la fecha es el que usa el índice para saltar al cursor; el OR descarta
+            // las citas de esa misma fecha que ya salieron en la página anterior
+            condiciones.add("c.fechaHora >= :cursorFecha AND (c.fechaHora > :cursorFecha OR c.id > :cursorId)");
+        }
+        // Dos pasos: primero los ids (y fechas) de la página, que salen solo del índice (sin JOIN no hay plan que
+        // elegir), y despues las citas con sus relaciones por clave primaria. Con los JOIN FETCH en la
+        // misma consulta H2 a veces arranca por SALAS y recorre el rango entero.
+        // El recurso va primero en el ORDER BY aunque sea fijo: asi H2 reconoce el orden del índice
+        // (recurso, fecha_hora, id) y corta en la fila tamanio + 1 en vez de ordenar todo lo que sigue.
+        String jpql = "SELECT c.id, c.fechaHora FROM Cita c "
+                + (condiciones.isEmpty() ? "" : "WHERE " + String.join(" AND ", condiciones))
+                + " ORDER BY " + (relacion != null ? "c." + relacion + ".id, " : "") + "c.fechaHora, c.id";
+
+        EntityManager em = emf.createEntityManager();
+        try {
+            TypedQuery<Object[]> query = em.createQuery(jpql, Object[].class);
+            if (relacion != null) {
+                query.setParameter("id", id);
+            }
+            if (desde != null) {
+                query.setParameter("desde", desde);
+                query.setParameter("hasta", hasta);
+            }
+            if (despuesDe != null) {
+                query.setParameter("cursorFecha", despuesDe.getFechaHora());
+                query.setParameter("cursorId", despuesDe.getId());
+            }
+            // Una fila de más para saber si hay otra página sin hacer un COUNT
+            List<Object[]> filas = query.setMaxResults(tamanio + 1).getResultList();
+            boolean hayMas = filas.size() > tamanio;
+            if (hayMas) {
+                filas = filas.subList(0, tamanio);
+            }
+            if (filas.isEmpty()) {
+                return new PaginaCitas(Collections.emptyList(), null);
+            }
+            List<Long> ids = new ArrayList<>(filas.size());
+            for (Object[] fila : filas) {
+                ids.add((Long) fila[0]);
+            }
+            // El cursor sale de la primera consulta: si alguna cita de la página se borró antes de la
+            // segunda, la página viene más corta pero la siguiente arranca donde corresponde
+            Object[] ultima = filas.get(filas.size() - 1);
+            CursorCita siguiente = hayMas ? new CursorCita((LocalDateTime) ultima[1], (Long) ultima[0]) : null;
+
+            List<Cita> citas = em.createQuery(CONSULTA_CITAS + "WHERE c.id IN :ids ORDER BY c.fechaHora, c.id",
+                            Cita.class)
+                    .setParameter("ids", ids)
+                    .getResultList();
+            return new PaginaCitas(citas, siguiente);
+        } finally {
+            em.close();
+        }
+    }
+
+    private List<Cita> consultar(String jpql, Long id) {
+        if (id == null) {
+            return Collections.emptyList();
+        }
+        EntityManager em = emf.createEntityManager();
+        try {
+            return Collections.unmodifiableList(em.createQuery(jpql, Cita.class)
+                    .setParameter("id", id)
+                    .getResultList());
+        } finally {
+            em.close();
+        }
+    }
+
+    private List<Cita> consultarRango(String relacion, Long id, LocalDateTime desde, LocalDateTime hasta) {
+        if (id == null || !desde.isBefore(hasta)) {
+            return Collections.emptyList();
+        }
+        EntityManager em = emf.createEntityManager();
+        try {
+            return Collections.unmodifiableList(em.createQuery(CONSULTA_CITAS +
+                            "WHERE c." + relacion + ".id = :id AND c.fechaHora > :desde AND c.fechaHora < :hasta " +
+                            "ORDER BY c.fechaHora", Cita.class)
+                    .setParameter("id", id)
+                    .setParameter("desde", desde.minus(duracionCita))
+                    .setParameter("hasta", hasta)
+                    .getResultList());
+        } finally {
+            em.close();
+        }
+    }
+
+    // Recorre la tabla con un cursor, sin cargar las citas como entidades (ver ExportadorCitas)
+    @Override
+    public void guardarCitas(String filename) throws IOException {
+        new ExportadorCitas(emf).exportarCsv(Path.of(filename));
+    }
+
+    // Igual que CitaManager, la carga reemplaza todas las citas por las del archivo, las filas inválidas se
+    // informan sin cortar la carga y una cita que se solapa con otra anterior del archivo (mismo médico o
+    // misma sala) se rechaza
+    @Override
+    public void cargarCitas(String filename, Map<String, Paciente> pacientes,
+                            Map<String, Medico> medicos, Map<String, Sala> salas)
+            throws IOException, ClassNotFoundException, CitaException {
+        Path archivo = Path.of(filename);
+        if (!Files.isReadable(archivo)) {
+            throw new FileNotFoundException(filename);
+        }
+
+        EventoTransaccionJpa transaccion = new EventoTransaccionJpa("CitaManagerJpa.cargarCitas");
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            em.createQuery("DELETE FROM Cita").executeUpdate();
+
+            int[] enLote = {0};
+            AgendasImportacion agendas = new AgendasImportacion(duracionCita);
+            ReporteImportacion reporte = ImportadorCitasCsv.importar(archivo,
+                    new ParserCitaCsv(pacientes, medicos, salas), leida -> {
+                        if (leida.getPaciente().getId() == null || leida.getMedico().getId() == null
+                                || leida.getSala().getId() == null) {
+                            throw new CitaException(MotivoRechazo.DATOS_INCOMPLETOS,
+                                    "Las entidades de la cita deben estar persistidas.");
+                        }
+                        agendas.reservar(leida);
+
+                        Cita cita = nuevaCita(em, leida.getPaciente(), leida.getMedico(), leida.getSala(),
+                                leida.getFechaHora(), leida.getCosto());
+                        cita.setEstado(leida.getEstado());
+                        cita.setObservaciones(leida.getObservaciones());
+                        em.persist(cita);
+
+                        if (++enLote[0] == tamanioLote) {
+                            em.flush();
+                            em.clear();
+                            enLote[0] = 0;
+                        }
+                    });
+
+            em.getTransaction().commit();
+            transaccion.setEntidades(reporte.getFilasAceptadas());
+            transaccion.confirmada();
+            for (RechazoImportacion rechazo : reporte.getRechazos()) {
+                System.err.println("Error al cargar cita desde CSV, línea " + rechazo.getNumeroLinea()
+                        + " - " + rechazo.getMotivo());
+            }
+        } catch (IOException | RuntimeException e) {
+            transaccion.error(e);
+            throw e;
+        } finally {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            em.close();
+            transaccion.terminar();
+        }
+    }
+}
@@ -12,12 +12,20 @@ interface CitaService {
     Cita programarCita(Paciente paciente, Medico medico, Sala sala,
                        LocalDateTime fechaHora, BigDecimal costo) throws CitaException;
 
+    // Programa un lote completo; cada solicitud se acepta o se rechaza con su motivo, sin cortar el lote
+    List<ResultadoCita> programarCitas(List<SolicitudCita> solicitudes);
+
     List<Cita> getCitasPorPaciente(Paciente paciente);
 
     List<Cita> getCitasPorMedico(Medico medico);
 
+    // Citas que se solapan con el intervalo [desde, hasta)
+    List<Cita> getCitasPorMedico(Medico medico, LocalDateTime desde, LocalDateTime hasta);
+
     List<Cita> getCitasPorSala(Sala sala);
 
+    List<Cita> getCitasPorSala(Sala sala, LocalDateTime desde, LocalDateTime hasta);
+
     void guardarCitas(String filename) throws IOException;
 
     void cargarCitas(String filename, Map<String, Paciente> pacientes,
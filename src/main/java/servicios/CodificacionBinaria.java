@@ -0,0 +1,78 @@
+package servicios;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// Enteros de largo variable (varint, 7 bits por byte) y textos con prefijo de largo,
+// compartidos por el snapshot y el journal de citas.
+final class CodificacionBinaria {
+    static final int MAXIMO_VARLONG = 10;
+
+    private CodificacionBinaria() {
+    }
+
+    static void escribirVarLong(ByteBuffer buffer, long valor) {
+        while ((valor & ~0x7FL) != 0) {
+            buffer.put((byte) ((valor & 0x7F) | 0x80));
+            valor >>>= 7;
+        }
+        buffer.put((byte) valor);
+    }
+
+    static long leerVarLong(ByteBuffer buffer) {
+        long valor = 0;
+        for (int desplazamiento = 0; desplazamiento < 64; desplazamiento += 7) {
+            byte b = buffer.get();
+            valor |= (long) (b & 0x7F) << desplazamiento;
+            if ((b & 0x80) == 0) {
+                return valor;
+            }
+        }
+        throw new IllegalStateException("Varint mal formado");
+    }
+
+    static int leerVarInt(ByteBuffer buffer) {
+        long valor = leerVarLong(buffer);
+        if (valor < 0 || valor > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Varint fuera de rango: " + valor);
+        }
+        return (int) valor;
+    }
+
+    // Zigzag: los valores negativos chicos tambien ocupan pocos bytes
+    static long zigzag(long valor) {
+        return (valor << 1) ^ (valor >> 63);
+    }
+
+    static long desZigzag(long valor) {
+        return (valor >>> 1) ^ -(valor & 1);
+    }
+
+    static byte[] bytes(String texto) {
+        return texto.getBytes(StandardCharsets.UTF_8);
+    }
+
+    static void escribirTexto(ByteBuffer buffer, byte[] utf8) {
+        escribirVarLong(buffer, utf8.length);
+        buffer.put(utf8);
+    }
+
+    static String leerTexto(ByteBuffer buffer) {
+        int largo = leerVarInt(buffer);
+        if (largo == 0) {
+            return "";
+        }
+        byte[] utf8 = new byte[largo];
+        buffer.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    // Costo con escala >= 0 y valor sin escala que entre en un long; null si no se puede representar asi
+    static BigDecimal costoCodificable(BigDecimal costo) {
+        if (costo.scale() < 0) {
+            costo = costo.setScale(0);
+        }
+        return costo.unscaledValue().bitLength() <= 63 ? costo : null;
+    }
+}
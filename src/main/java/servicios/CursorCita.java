@@ -0,0 +1,28 @@
+package servicios;
+
+import entidades.Cita;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+// Posición en un listado de citas ordenado por (fechaHora, id): la página siguiente empieza justo
+// después de esta cita. El id desempata las citas con la misma fecha y hora.
+@Getter
+@ToString
+@EqualsAndHashCode
+public class CursorCita {
+    private final LocalDateTime fechaHora;
+    private final long id;
+
+    public CursorCita(LocalDateTime fechaHora, long id) {
+        this.fechaHora = Objects.requireNonNull(fechaHora, "La fecha y hora del cursor no puede ser nula");
+        this.id = id;
+    }
+
+    public static CursorCita de(Cita cita) {
+        return new CursorCita(cita.getFechaHora(), cita.getId());
+    }
+}
@@ -0,0 +1,142 @@
+package servicios;
+
+import entidades.EspecialidadMedica;
+import entidades.EstadoCita;
+import entidades.TipoSangre;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.Getter;
+import lombok.ToString;
+import org.hibernate.jpa.HibernateHints;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+// Conteos para tableros de un hospital: cada uno es una sola consulta GROUP BY que devuelve numeros,
+// no entidades. Médicos y salas cuentan por el hospital de su departamento, las citas por el del médico.
+// Van a la caché de consultas de Hibernate (región default-query-results-region de ehcache.xml):
+// mientras no cambien las tablas que tocan se contestan sin ir a la base, y cualquier alta, baja o
+// modificación hecha por Hibernate sobre esas tablas invalida el resultado.
+public class EstadisticasHospital {
+    private static final String MEDICOS_POR_ESPECIALIDAD =
+            "SELECT m.especialidad, COUNT(m) FROM Medico m WHERE m.departamento.hospital.id = :id " +
+            "GROUP BY m.especialidad";
+    // COUNT(DISTINCT): los dos LEFT JOIN multiplican las filas de cada departamento
+    private static final String DEPARTAMENTOS =
+            "SELECT d.id, d.nombre, d.especialidad, COUNT(DISTINCT m.id), COUNT(DISTINCT s.id) " +
+            "FROM Departamento d LEFT JOIN d.medicos m LEFT JOIN d.salas s WHERE d.hospital.id = :id " +
+            "GROUP BY d.id, d.nombre, d.especialidad ORDER BY d.nombre, d.id";
+    private static final String PACIENTES_POR_TIPO_SANGRE =
+            "SELECT p.tipoSangre, COUNT(p) FROM Paciente p WHERE p.hospital.id = :id GROUP BY p.tipoSangre";
+    private static final String CITAS_POR_ESTADO =
+            "SELECT c.estado, COUNT(c) FROM Cita c WHERE c.medico.departamento.hospital.id = :id " +
+            "GROUP BY c.estado";
+
+    private final EntityManagerFactory emf;
+
+    public EstadisticasHospital(EntityManagerFactory emf) {
+        this.emf = Objects.requireNonNull(emf, "El EntityManagerFactory no puede ser nulo");
+    }
+
+    // Solo las especialidades con al menos un médico
+    public Map<EspecialidadMedica, Long> medicosPorEspecialidad(Long hospitalId) {
+        return contarPor(MEDICOS_POR_ESPECIALIDAD, hospitalId, EspecialidadMedica.class);
+    }
+
+    public Map<TipoSangre, Long> pacientesPorTipoSangre(Long hospitalId) {
+        return contarPor(PACIENTES_POR_TIPO_SANGRE, hospitalId, TipoSangre.class);
+    }
+
+    public Map<EstadoCita, Long> citasPorEstado(Long hospitalId) {
+        return contarPor(CITAS_POR_ESTADO, hospitalId, EstadoCita.class);
+    }
+
+    // Médicos y salas de cada departamento, ordenados por nombre
+    public List<ResumenDepartamento> departamentos(Long hospitalId) {
+        List<ResumenDepartamento> departamentos = new ArrayList<>();
+        for (Object[] fila : consultar(DEPARTAMENTOS, hospitalId)) {
+            departamentos.add(new ResumenDepartamento((Long) fila[0], (String) fila[1],
+                    (EspecialidadMedica) fila[2], (Long) fila[3], (Long) fila[4]));
+        }
+        return Collections.unmodifiableList(departamentos);
+    }
+
+    // Las cuatro consultas de una vez; con la caché caliente no va ninguna a la base
+    public Panel tomarPanel(Long hospitalId) {
+        return new Panel(medicosPorEspecialidad(hospitalId), departamentos(hospitalId),
+                pacientesPorTipoSangre(hospitalId), citasPorEstado(hospitalId));
+    }
+
+    private <E extends Enum<E>> Map<E, Long> contarPor(String jpql, Long hospitalId, Class<E> tipo) {
+        Map<E, Long> conteos = new EnumMap<>(tipo);
+        for (Object[] fila : consultar(jpql, hospitalId)) {
+            conteos.put(tipo.cast(fila[0]), (Long) fila[1]);
+        }
+        return Collections.unmodifiableMap(conteos);
+    }
+
+    // La caché de consultas guarda un resultado por cada valor del parámetro
+    private List<Object[]> consultar(String jpql, Long hospitalId) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            return em.createQuery(jpql, Object[].class)
+                    .setParameter("id", hospitalId)
+                    .setHint(HibernateHints.HINT_CACHEABLE, true)
+                    .setHint(HibernateHints.HINT_READ_ONLY, true)
+                    .getResultList();
+        } finally {
+            em.close();
+        }
+    }
+
+    @Getter
+    @ToString
+    public static class ResumenDepartamento {
+        private final Long id;
+        private final String nombre;
+        private final EspecialidadMedica especialidad;
+        private final long medicos;
+        private final long salas;
+
+        ResumenDepartamento(Long id, String nombre, EspecialidadMedica especialidad, long medicos, long salas) {
+            this.id = id;
+            this.nombre = nombre;
+            this.especialidad = especialidad;
+            this.medicos = medicos;
+            this.salas = salas;
+        }
+    }
+
+    @Getter
+    @ToString
+    public static class Panel {
+        private final Map<EspecialidadMedica, Long> medicosPorEspecialidad;
+        private final List<ResumenDepartamento> departamentos;
+        private final Map<TipoSangre, Long> pacientesPorTipoSangre;
+        private final Map<EstadoCita, Long> citasPorEstado;
+
+        Panel(Map<EspecialidadMedica, Long> medicosPorEspecialidad, List<ResumenDepartamento> departamentos,
+              Map<TipoSangre, Long> pacientesPorTipoSangre, Map<EstadoCita, Long> citasPorEstado) {
+            this.medicosPorEspecialidad = medicosPorEspecialidad;
+            this.departamentos = departamentos;
+            this.pacientesPorTipoSangre = pacientesPorTipoSangre;
+            this.citasPorEstado = citasPorEstado;
+        }
+
+        public long getTotalMedicos() {
+            return departamentos.stream().mapToLong(ResumenDepartamento::getMedicos).sum();
+        }
+
+        public long getTotalSalas() {
+            return departamentos.stream().mapToLong(ResumenDepartamento::getSalas).sum();
+        }
+
+        public long getTotalPacientes() {
+            return pacientesPorTipoSangre.values().stream().mapToLong(Long::longValue).sum();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package servicios;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// Evento JFR de las cargas y guardados de citas (CSV o snapshot): archivo, filas y resultado.
+// Una carga toma todas las franjas de BloqueoRecursos, asi que en la grabación explica las reservas
+// que quedaron esperando en el mismo intervalo.
+@Name("hospital.citas.Archivo")
+@Label("Carga o guardado de citas")
+@Category({"Hospital", "Citas"})
+@Description("Lectura o escritura completa de las citas de CitaManager")
+class EventoArchivoCitas extends Event {
+    @Label("Operación")
+    String operacion;
+
+    @Label("Archivo")
+    String archivo;
+
+    @Label("Filas aceptadas")
+    long filasAceptadas;
+
+    @Label("Filas rechazadas")
+    long filasRechazadas;
+
+    @Label("Resultado")
+    @Description("OK o la excepción que cortó la operación")
+    String resultado = "OK";
+
+    EventoArchivoCitas(MetricasCitas.Operacion operacion, String archivo) {
+        this.operacion = operacion.name();
+        this.archivo = archivo;
+        begin();
+    }
+
+    void filas(long aceptadas, long rechazadas) {
+        this.filasAceptadas = aceptadas;
+        this.filasRechazadas = rechazadas;
+    }
+
+    void filas(ReporteImportacion reporte) {
+        filas(reporte.getFilasAceptadas(), reporte.getFilasRechazadas());
+    }
+
+    void error(Exception e) {
+        this.resultado = e.getClass().getSimpleName();
+    }
+
+    void terminar() {
+        end();
+        if (shouldCommit()) {
+            commit();
+        }
+    }
+}
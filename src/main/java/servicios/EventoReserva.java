@@ -0,0 +1,79 @@
+package servicios;
+
+import entidades.Medico;
+import entidades.Paciente;
+import entidades.Sala;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+import java.time.LocalDateTime;
+
+// Evento JFR de CitaManager.programarCita. Los datos se cargan solo si el evento se va a grabar, asi que
+// con JFR apagado cuesta un begin/end. Por defecto solo se graban las reservas de más de 1 ms; con
+// -XX:StartFlightRecording:settings=... o jfr configure se puede bajar el umbral a 0.
+@Name("hospital.citas.Reserva")
+@Label("Reserva de cita")
+@Category({"Hospital", "Citas"})
+@Description("Alta de una cita en CitaManager: recursos involucrados y resultado")
+@Threshold("1 ms")
+@StackTrace(false)
+class EventoReserva extends Event {
+    static final String ACEPTADA = "ACEPTADA";
+
+    @Label("DNI paciente")
+    String dniPaciente;
+
+    @Label("DNI médico")
+    String dniMedico;
+
+    @Label("Sala")
+    String sala;
+
+    @Label("Id paciente")
+    long idPaciente;
+
+    @Label("Id médico")
+    long idMedico;
+
+    @Label("Id sala")
+    long idSala;
+
+    @Label("Fecha y hora")
+    String fechaHora;
+
+    @Label("Resultado")
+    @Description("ACEPTADA, el motivo del rechazo o la excepción")
+    String resultado;
+
+    void terminar(Paciente paciente, Medico medico, Sala sala, LocalDateTime fechaHora, String resultado) {
+        end();
+        if (!shouldCommit()) {
+            return;
+        }
+        if (paciente != null) {
+            this.dniPaciente = paciente.getDni();
+            this.idPaciente = id(paciente.getId());
+        }
+        if (medico != null) {
+            this.dniMedico = medico.getDni();
+            this.idMedico = id(medico.getId());
+        }
+        if (sala != null) {
+            this.sala = sala.getNumero();
+            this.idSala = id(sala.getId());
+        }
+        this.fechaHora = String.valueOf(fechaHora);
+        this.resultado = resultado;
+        commit();
+    }
+
+    // Las entidades que no pasaron por JPA no tienen id
+    private static long id(Long id) {
+        return id != null ? id : -1;
+    }
+}
@@ -0,0 +1,50 @@
+package servicios;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// Evento JFR de una transacción JPA, desde begin hasta commit o rollback. Junto con los eventos de
+// socket/JDBC y de GC de la misma grabación muestra en qué se fue el tiempo de la transacción.
+@Name("hospital.jpa.Transaccion")
+@Label("Transacción JPA")
+@Category({"Hospital", "JPA"})
+@Description("Transacción abierta por la aplicación sobre HospitalJPA_PU")
+public class EventoTransaccionJpa extends Event {
+    @Label("Nombre")
+    String nombre;
+
+    @Label("Entidades")
+    @Description("Entidades escritas o leídas por la transacción, si se conocen")
+    long entidades;
+
+    @Label("Resultado")
+    @Description("COMMIT, ROLLBACK o la excepción")
+    String resultado = "ROLLBACK";
+
+    public EventoTransaccionJpa(String nombre) {
+        this.nombre = nombre;
+        begin();
+    }
+
+    public void setEntidades(long entidades) {
+        this.entidades = entidades;
+    }
+
+    public void confirmada() {
+        this.resultado = "COMMIT";
+    }
+
+    public void error(Exception e) {
+        this.resultado = "ROLLBACK: " + e.getClass().getSimpleName();
+    }
+
+    public void terminar() {
+        end();
+        if (shouldCommit()) {
+            commit();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package servicios;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+// Exporta todas las citas de la base a un Destino (CSV u otro) con memoria constante, sin importar el
+// tamaño de la tabla. Recorre la tabla en tramos de FILAS_POR_LOTE por keyset sobre la clave primaria
+// (c.id > último exportado), y cada tramo proyecta directo a FilaCita con los JOIN de paciente, médico y
+// sala: no se crean entidades y el contexto se limpia entre tramos.
+// Un único getResultStream sobre toda la tabla no alcanza con H2 embebido: el motor arma el resultado
+// entero antes de devolver la primera fila (pasándolo a disco si es grande), y sin condición sobre c.id
+// el plan arranca por SALAS y ordena todas las filas. Cada tramo en cambio es un rango de la clave.
+public class ExportadorCitas {
+    public static final int FILAS_POR_LOTE = 1000;
+
+    private static final String CONSULTA =
+            "SELECT c.id, new servicios.FilaCita(p.dni, m.dni, s.numero, c.fechaHora, c.costo, c.estado, c.observaciones) " +
+            "FROM Cita c JOIN c.paciente p JOIN c.medico m JOIN c.sala s WHERE c.id > :ultimo ORDER BY c.id";
+
+    @FunctionalInterface
+    public interface Destino {
+        void escribir(FilaCita fila) throws IOException;
+    }
+
+    private final EntityManagerFactory emf;
+
+    public ExportadorCitas(EntityManagerFactory emf) {
+        this.emf = Objects.requireNonNull(emf, "El EntityManagerFactory no puede ser nulo");
+    }
+
+    // Devuelve la cantidad de filas exportadas
+    public long exportar(Destino destino) throws IOException {
+        EntityManager em = emf.createEntityManager();
+        try {
+            Session sesion = em.unwrap(Session.class);
+            sesion.setDefaultReadOnly(true);
+            sesion.setHibernateFlushMode(FlushMode.MANUAL);
+            TypedQuery<Object[]> query = em.createQuery(CONSULTA, Object[].class)
+                    .setHint(HibernateHints.HINT_READ_ONLY, true)
+                    .setHint(HibernateHints.HINT_FETCH_SIZE, FILAS_POR_LOTE)
+                    .setMaxResults(FILAS_POR_LOTE);
+            long filas = 0;
+            long ultimo = Long.MIN_VALUE;
+            int leidas;
+            do {
+                leidas = 0;
+                try (Stream<Object[]> tramo = query.setParameter("ultimo", ultimo).getResultStream()) {
+                    Iterator<Object[]> iterador = tramo.iterator();
+                    while (iterador.hasNext()) {
+                        Object[] fila = iterador.next();
+                        ultimo = (Long) fila[0];
+                        destino.escribir((FilaCita) fila[1]);
+                        leidas++;
+                    }
+                }
+                filas += leidas;
+                em.clear();
+            } while (leidas == FILAS_POR_LOTE);
+            return filas;
+        } finally {
+            em.close();
+        }
+    }
+
+    // CSV en el formato de Cita.toCsvString. Se escribe aparte y se renombra al terminar: si falla a la
+    // mitad no queda un archivo cortado en lugar del anterior
+    public long exportarCsv(Path archivo) throws IOException {
+        Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        long filas;
+        try (BufferedWriter writer = Files.newBufferedWriter(temporal, StandardCharsets.UTF_8)) {
+            filas = exportar(fila -> {
+                writer.write(fila.toCsvString());
+                writer.newLine();
+            });
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporal);
+            throw e;
+        }
+        Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return filas;
+    }
+}
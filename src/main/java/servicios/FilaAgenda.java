@@ -0,0 +1,13 @@
+package servicios;
+
+import entidades.EstadoCita;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Una cita de una agenda, tal como se lista: solo columnas, sin entidades ni proxies detrás.
+// La arma LecturasHospital con una expresión constructora de JPQL.
+public record FilaAgenda(Long id, LocalDateTime fechaHora, EstadoCita estado, BigDecimal costo,
+                         Long pacienteId, String paciente, String dniPaciente,
+                         Long medicoId, String medico, String sala) {
+}
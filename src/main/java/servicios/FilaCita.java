@@ -0,0 +1,27 @@
+package servicios;
+
+import entidades.EstadoCita;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Columnas de una cita exportada: las relaciones van como DNI o número de sala, igual que en el CSV
+public record FilaCita(String dniPaciente, String dniMedico, String sala, LocalDateTime fechaHora,
+                       BigDecimal costo, EstadoCita estado, String observaciones) {
+
+    // Mismo formato que Cita.toCsvString, el que leen las cargas de CitaManager y CitaManagerJpa. Armado a
+    // mano y no con String.format/replaceAll: en una exportación grande eso era la mitad del tiempo
+    public String toCsvString() {
+        StringBuilder linea = new StringBuilder(96)
+                .append(dniPaciente).append(',')
+                .append(dniMedico).append(',')
+                .append(sala).append(',')
+                .append(fechaHora).append(',')
+                .append(costo).append(',')
+                .append(estado.name()).append(',');
+        if (observaciones != null) {
+            linea.append(observaciones.replace(',', ';'));
+        }
+        return linea.toString();
+    }
+}
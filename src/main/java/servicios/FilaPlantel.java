@@ -0,0 +1,8 @@
+package servicios;
+
+import entidades.EspecialidadMedica;
+
+// Un médico en el plantel de su departamento
+public record FilaPlantel(Long departamentoId, String departamento, EspecialidadMedica especialidad,
+                          Long medicoId, String nombre, String apellido, String matricula) {
+}
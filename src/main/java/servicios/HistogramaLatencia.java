@@ -0,0 +1,110 @@
+package servicios;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Histograma de latencias en nanosegundos con cubetas log-lineales: los valores menores a 64 tienen
+// cubeta propia y de ahi en mas cada potencia de dos se parte en 32 cubetas, asi el error relativo de
+// un percentil queda por debajo del 3% para cualquier magnitud, con un arreglo fijo de ~1900 contadores.
+// Registrar no usa locks: varios hilos pueden registrar a la vez mientras otro lee o acumula.
+public class HistogramaLatencia {
+    private static final int BITS_SUBCUBETA = 5;
+    private static final int SUBCUBETAS = 1 << BITS_SUBCUBETA;
+    // Valores con cubeta propia (0..63)
+    private static final int LINEALES = SUBCUBETAS * 2;
+    private static final int CUBETAS = indice(Long.MAX_VALUE) + 1;
+
+    private final AtomicLongArray cuentas = new AtomicLongArray(CUBETAS);
+    private final LongAdder cantidad = new LongAdder();
+    private final LongAdder suma = new LongAdder();
+    private final AtomicLong maximo = new AtomicLong();
+
+    public void registrar(long nanos) {
+        long valor = Math.max(nanos, 0);
+        cuentas.incrementAndGet(indice(valor));
+        cantidad.increment();
+        suma.add(valor);
+        long actual = maximo.get();
+        while (valor > actual && !maximo.compareAndSet(actual, valor)) {
+            actual = maximo.get();
+        }
+    }
+
+    // Suma las cuentas de otro histograma a este (p. ej. para juntar intervalos)
+    public void acumular(HistogramaLatencia otro) {
+        for (int i = 0; i < CUBETAS; i++) {
+            long cuenta = otro.cuentas.get(i);
+            if (cuenta != 0) {
+                cuentas.addAndGet(i, cuenta);
+            }
+        }
+        cantidad.add(otro.cantidad.sum());
+        suma.add(otro.suma.sum());
+        long otroMaximo = otro.maximo.get();
+        long actual = maximo.get();
+        while (otroMaximo > actual && !maximo.compareAndSet(actual, otroMaximo)) {
+            actual = maximo.get();
+        }
+    }
+
+    public long getCantidad() {
+        return cantidad.sum();
+    }
+
+    public long getSuma() {
+        return suma.sum();
+    }
+
+    public long getMaximo() {
+        return maximo.get();
+    }
+
+    public double getMedia() {
+        long n = cantidad.sum();
+        return n == 0 ? 0 : (double) suma.sum() / n;
+    }
+
+    // Valor por debajo del cual queda la fraccion 'percentil' (0..100) de las muestras. Devuelve el
+    // limite superior de la cubeta, acotado por el maximo registrado.
+    public long percentil(double percentil) {
+        long total = 0;
+        long[] copia = new long[CUBETAS];
+        for (int i = 0; i < CUBETAS; i++) {
+            copia[i] = cuentas.get(i);
+            total += copia[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long objetivo = Math.max(1, (long) Math.ceil(total * Math.min(percentil, 100.0) / 100.0));
+        long acumulado = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            acumulado += copia[i];
+            if (acumulado >= objetivo) {
+                return Math.min(limiteSuperior(i), maximo.get());
+            }
+        }
+        return maximo.get();
+    }
+
+    static int indice(long valor) {
+        if (valor < LINEALES) {
+            return (int) valor;
+        }
+        // Corrimiento que deja el valor en [32, 64): las cubetas de cada potencia de dos son consecutivas
+        int corrimiento = 63 - Long.numberOfLeadingZeros(valor) - BITS_SUBCUBETA;
+        return corrimiento * SUBCUBETAS + (int) (valor >>> corrimiento);
+    }
+
+    static long limiteSuperior(int indice) {
+        if (indice < LINEALES) {
+            return indice;
+        }
+        int corrimiento = indice / SUBCUBETAS - 1;
+        long mantisa = indice % SUBCUBETAS + SUBCUBETAS;
+        long limite = ((mantisa + 1) << corrimiento) - 1;
+        // La ultima cubeta se pasa de rango
+        return limite < 0 ? Long.MAX_VALUE : limite;
+    }
+}
@@ -0,0 +1,233 @@
+package servicios;
+
+import entidades.Cita;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+// Importación en streaming de un CSV de citas: el archivo se lee por bloques en un buffer fijo y
+// cada línea se parsea y se entrega al destino apenas se completa, sin guardar el archivo en memoria.
+// Las filas inválidas no cortan la carga: quedan en el reporte con su número de línea.
+class ImportadorCitasCsv {
+    private static final int TAMANIO_BUFFER = 1 << 20;
+    private static final long TAMANIO_BLOQUE = 32L << 20;
+
+    interface DestinoCita {
+        void aceptar(Cita cita) throws CitaException;
+    }
+
+    private ImportadorCitasCsv() {
+    }
+
+    static ReporteImportacion importar(Path archivo, ParserCitaCsv parser, DestinoCita destino) throws IOException {
+        ReporteImportacion reporte = new ReporteImportacion();
+        ByteBuffer buffer = ByteBuffer.allocate(TAMANIO_BUFFER);
+        long numeroLinea = 0;
+
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            boolean finArchivo = false;
+            while (!finArchivo) {
+                finArchivo = canal.read(buffer) < 0;
+                buffer.flip();
+
+                int inicioLinea = 0;
+                int limite = buffer.limit();
+                for (int i = 0; i < limite; i++) {
+                    if (buffer.get(i) == '\n') {
+                        procesarLinea(buffer, inicioLinea, i, ++numeroLinea, parser, destino, reporte);
+                        inicioLinea = i + 1;
+                    }
+                }
+                if (finArchivo && inicioLinea < limite) {
+                    procesarLinea(buffer, inicioLinea, limite, ++numeroLinea, parser, destino, reporte);
+                    inicioLinea = limite;
+                }
+
+                // La línea incompleta pasa al principio del buffer para completarse con la próxima lectura
+                buffer.position(inicioLinea);
+                buffer.compact();
+                if (!buffer.hasRemaining()) {
+                    buffer = agrandar(buffer);
+                }
+            }
+        }
+        return reporte;
+    }
+
+    static void procesarLinea(ByteBuffer buffer, int inicio, int fin, long numeroLinea, ParserCitaCsv parser,
+                              DestinoCita destino, ReporteImportacion reporte) {
+        if (fin > inicio && buffer.get(fin - 1) == '\r') {
+            fin--;
+        }
+        if (fin == inicio) {
+            return;
+        }
+        try {
+            destino.aceptar(parser.parsear(buffer, inicio, fin));
+            reporte.aceptada();
+        } catch (CitaException e) {
+            reporte.rechazada(numeroLinea, e.getMessage());
+        }
+    }
+
+    // Variante paralela: el archivo se mapea en memoria por bloques cortados en saltos de línea, los bloques
+    // se parsean en el pool y los resultados se vuelcan al destino en orden de archivo desde el hilo llamador.
+    // Asi la validación de conflictos da exactamente lo mismo que la importación secuencial.
+    static ReporteImportacion importarEnParalelo(Path archivo, Supplier<ParserCitaCsv> parsers,
+                                                 DestinoCita destino, ForkJoinPool pool) throws IOException {
+        ReporteImportacion reporte = new ReporteImportacion();
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            List<long[]> bloques = dividirEnBloques(canal);
+            // Se limita la cantidad de bloques parseados a la espera de ser volcados
+            int maximoEnCurso = pool.getParallelism() * 2;
+            Deque<Future<BloqueParseado>> enCurso = new ArrayDeque<>();
+            int siguiente = 0;
+            long lineasPrevias = 0;
+
+            while (siguiente < bloques.size() || !enCurso.isEmpty()) {
+                while (siguiente < bloques.size() && enCurso.size() < maximoEnCurso) {
+                    long[] bloque = bloques.get(siguiente++);
+                    enCurso.add(pool.submit(() -> parsearBloque(canal, bloque[0], bloque[1], parsers.get())));
+                }
+                BloqueParseado parseado = esperar(enCurso.poll());
+                parseado.volcar(lineasPrevias, destino, reporte);
+                lineasPrevias += parseado.lineas;
+            }
+        }
+        return reporte;
+    }
+
+    private static List<long[]> dividirEnBloques(FileChannel canal) throws IOException {
+        List<long[]> bloques = new ArrayList<>();
+        long tamanio = canal.size();
+        ByteBuffer busqueda = ByteBuffer.allocate(8192);
+        long inicio = 0;
+        while (inicio < tamanio) {
+            long fin = Math.min(inicio + TAMANIO_BLOQUE, tamanio);
+            // Corrimiento del corte hasta después del próximo salto de línea
+            boolean encontrado = fin == tamanio;
+            while (!encontrado) {
+                busqueda.clear();
+                int leidos = canal.read(busqueda, fin);
+                if (leidos <= 0) {
+                    fin = tamanio;
+                    break;
+                }
+                for (int i = 0; i < leidos; i++) {
+                    if (busqueda.get(i) == '\n') {
+                        fin += i + 1;
+                        encontrado = true;
+                        break;
+                    }
+                }
+                if (!encontrado) {
+                    fin += leidos;
+                }
+            }
+            if (fin - inicio > Integer.MAX_VALUE) {
+                throw new IOException("Línea demasiado larga en " + inicio);
+            }
+            bloques.add(new long[]{inicio, fin});
+            inicio = fin;
+        }
+        return bloques;
+    }
+
+    private static BloqueParseado parsearBloque(FileChannel canal, long inicio, long fin, ParserCitaCsv parser) {
+        ByteBuffer buffer;
+        try {
+            buffer = canal.map(FileChannel.MapMode.READ_ONLY, inicio, fin - inicio);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        BloqueParseado parseado = new BloqueParseado();
+        int limite = buffer.limit();
+        int inicioLinea = 0;
+        for (int i = 0; i <= limite; i++) {
+            if (i == limite && inicioLinea == limite) {
+                break;
+            }
+            if (i == limite || buffer.get(i) == '\n') {
+                parseado.lineas++;
+                int finLinea = (i > inicioLinea && buffer.get(i - 1) == '\r') ? i - 1 : i;
+                if (finLinea > inicioLinea) {
+                    try {
+                        parseado.agregar(parseado.lineas, parser.parsear(buffer, inicioLinea, finLinea));
+                    } catch (CitaException e) {
+                        parseado.agregar(parseado.lineas, e.getMessage());
+                    }
+                }
+                inicioLinea = i + 1;
+            }
+        }
+        return parseado;
+    }
+
+    private static BloqueParseado esperar(Future<BloqueParseado> futuro) throws IOException {
+        try {
+            return futuro.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Importación interrumpida");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw new IOException("Error al parsear el archivo de citas", e.getCause());
+        }
+    }
+
+    // Filas de un bloque en orden de línea: cada una es la Cita parseada o el motivo (String) del rechazo
+    private static class BloqueParseado {
+        private final List<Object> filas = new ArrayList<>();
+        private int[] numerosLinea = new int[1024];
+        private int lineas;
+
+        void agregar(int numeroLinea, Object fila) {
+            if (filas.size() == numerosLinea.length) {
+                numerosLinea = Arrays.copyOf(numerosLinea, numerosLinea.length * 2);
+            }
+            numerosLinea[filas.size()] = numeroLinea;
+            filas.add(fila);
+        }
+
+        void volcar(long lineasPrevias, DestinoCita destino, ReporteImportacion reporte) {
+            for (int i = 0; i < filas.size(); i++) {
+                Object fila = filas.get(i);
+                long numeroLinea = lineasPrevias + numerosLinea[i];
+                if (fila instanceof Cita) {
+                    try {
+                        destino.aceptar((Cita) fila);
+                        reporte.aceptada();
+                    } catch (CitaException e) {
+                        reporte.rechazada(numeroLinea, e.getMessage());
+                    }
+                } else {
+                    reporte.rechazada(numeroLinea, (String) fila);
+                }
+            }
+        }
+    }
+
+    private static ByteBuffer agrandar(ByteBuffer lleno) {
+        lleno.flip();
+        ByteBuffer mayor = ByteBuffer.allocate(lleno.capacity() * 2);
+        mayor.put(lleno);
+        return mayor;
+    }
+}
@@ -0,0 +1,471 @@
+package servicios;
+
+import entidades.*;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+// Journal (write-ahead log) de las altas y cambios de estado de citas.
+// El directorio guarda segmentos "citas-<generacion>.journal" y snapshots "citas-<generacion>.snap":
+// el snapshot de una generacion tiene todo lo anterior a su segmento, asi que para recuperar se carga
+// el último snapshot y se reproducen los segmentos desde esa generacion en adelante.
+// Cada registro es: largo (int), CRC32 del contenido (int) y contenido. Un registro cortado o con CRC
+// inválido marca el final de lo recuperable.
+// Los registros se anotan en memoria y un hilo escritor los baja a disco con un solo force por tanda
+// (group commit); sincronizar() espera a que todo lo anotado hasta ese momento sea durable.
+class JournalCitas implements Closeable {
+    private static final byte PROGRAMADA = 1;
+    private static final byte CAMBIO_ESTADO = 2;
+    private static final int CABECERA = 2 * Integer.BYTES;
+    private static final int TAMANIO_INICIAL = 64 * 1024;
+    private static final Pattern NOMBRE_ARCHIVO = Pattern.compile("citas-(\\d+)\\.(snap|journal)");
+
+    interface DestinoJournal {
+        void programada(Cita cita) throws CitaException;
+
+        void cambioEstado(Medico medico, LocalDateTime fechaHora, EstadoCita estado) throws CitaException;
+    }
+
+    private final Path directorio;
+    private final FileLock cerrojo;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition hayPendientes = lock.newCondition();
+    private final Condition hayDurables = lock.newCondition();
+    private final Thread escritor;
+    private ByteBuffer pendiente = ByteBuffer.allocate(TAMANIO_INICIAL);
+    private ByteBuffer enVuelo = ByteBuffer.allocate(TAMANIO_INICIAL);
+    private FileChannel canal;
+    private long generacion;
+    // Bytes anotados y bytes ya forzados a disco desde que se abrió el journal
+    private long anotados;
+    private long durables;
+    private long anotadosAlRotar;
+    private IOException falla;
+    private boolean cerrado;
+
+    // Empieza un segmento nuevo en la generacion indicada; el journal se queda con el cerrojo del directorio
+    JournalCitas(Path directorio, FileLock cerrojo, long generacion) throws IOException {
+        this.directorio = directorio;
+        this.cerrojo = cerrojo;
+        this.generacion = generacion;
+        this.canal = abrirSegmento(generacion);
+        this.escritor = new Thread(this::escribirPendientes, "journal-citas");
+        this.escritor.setDaemon(true);
+        this.escritor.start();
+    }
+
+    Path getDirectorio() {
+        return directorio;
+    }
+
+    long getGeneracion() {
+        lock.lock();
+        try {
+            return generacion;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void anotarProgramada(Cita cita) throws CitaException {
+        BigDecimal costo = CodificacionBinaria.costoCodificable(cita.getCosto());
+        if (costo == null) {
+            throw new CitaException(MotivoRechazo.COSTO_INVALIDO,
+                    "Costo fuera de rango para el journal: " + cita.getCosto());
+        }
+        byte[] paciente = CodificacionBinaria.bytes(cita.getPaciente().getDni());
+        byte[] medico = CodificacionBinaria.bytes(cita.getMedico().getDni());
+        byte[] sala = CodificacionBinaria.bytes(cita.getSala().getNumero());
+        byte[] observaciones = CodificacionBinaria.bytes(cita.getObservaciones());
+
+        ByteBuffer registro = ByteBuffer.allocate(2 + 8 * CodificacionBinaria.MAXIMO_VARLONG
+                + paciente.length + medico.length + sala.length + observaciones.length);
+        registro.put(PROGRAMADA);
+        CodificacionBinaria.escribirTexto(registro, paciente);
+        CodificacionBinaria.escribirTexto(registro, medico);
+        CodificacionBinaria.escribirTexto(registro, sala);
+        escribirFecha(registro, cita.getFechaHora());
+        CodificacionBinaria.escribirVarLong(registro, costo.scale());
+        CodificacionBinaria.escribirVarLong(registro, CodificacionBinaria.zigzag(costo.unscaledValue().longValue()));
+        registro.put((byte) cita.getEstado().ordinal());
+        CodificacionBinaria.escribirTexto(registro, observaciones);
+        anotar(registro);
+    }
+
+    // La cita se identifica por médico y horario: un médico no puede tener dos citas que empiecen juntas
+    void anotarCambioEstado(Cita cita, EstadoCita estado) {
+        byte[] medico = CodificacionBinaria.bytes(cita.getMedico().getDni());
+        ByteBuffer registro = ByteBuffer.allocate(2 + 3 * CodificacionBinaria.MAXIMO_VARLONG + medico.length);
+        registro.put(CAMBIO_ESTADO);
+        CodificacionBinaria.escribirTexto(registro, medico);
+        escribirFecha(registro, cita.getFechaHora());
+        registro.put((byte) estado.ordinal());
+        anotar(registro);
+    }
+
+    private static void escribirFecha(ByteBuffer registro, LocalDateTime fechaHora) {
+        CodificacionBinaria.escribirVarLong(registro,
+                CodificacionBinaria.zigzag(fechaHora.toEpochSecond(ZoneOffset.UTC)));
+        CodificacionBinaria.escribirVarLong(registro, fechaHora.getNano());
+    }
+
+    private void anotar(ByteBuffer registro) {
+        registro.flip();
+        CRC32 crc = new CRC32();
+        crc.update(registro.duplicate());
+        int largo = registro.remaining();
+
+        lock.lock();
+        try {
+            if (falla != null) {
+                throw new UncheckedIOException("El journal de citas no puede escribir", falla);
+            }
+            if (cerrado) {
+                throw new IllegalStateException("El journal de citas está cerrado");
+            }
+            if (pendiente.remaining() < CABECERA + largo) {
+                ByteBuffer mayor = ByteBuffer.allocate(Math.max(pendiente.capacity() * 2,
+                        pendiente.position() + CABECERA + largo));
+                mayor.put(pendiente.flip());
+                pendiente = mayor;
+            }
+            pendiente.putInt(largo);
+            pendiente.putInt((int) crc.getValue());
+            pendiente.put(registro);
+            anotados += CABECERA + largo;
+            hayPendientes.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Espera a que todo lo anotado hasta ahora este forzado a disco. La espera no se corta con una
+    // interrupción (la deja marcada): si se cortara, el llamador no sabría si el registro quedó escrito.
+    // Termina siempre, porque el escritor o fuerza la tanda o deja la falla.
+    void sincronizar() throws IOException {
+        lock.lock();
+        try {
+            long objetivo = anotados;
+            while (durables < objetivo && falla == null) {
+                hayDurables.awaitUninterruptibly();
+            }
+            if (durables < objetivo) {
+                throw new IOException("No se pudo escribir el journal de citas", falla);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Deja el journal como si el escritor hubiera fallado: desde ahora anotar y sincronizar fallan
+    void romper(IOException causa) {
+        lock.lock();
+        try {
+            if (falla == null) {
+                falla = causa;
+            }
+            hayDurables.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    boolean segmentoVacio() {
+        lock.lock();
+        try {
+            return anotados == anotadosAlRotar;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Pasa a un segmento nuevo y devuelve su generacion. El llamador no debe anotar mientras tanto.
+    long rotar() throws IOException {
+        sincronizar();
+        FileChannel nuevo = abrirSegmento(generacion + 1);
+        FileChannel anterior;
+        lock.lock();
+        try {
+            anterior = canal;
+            canal = nuevo;
+            generacion++;
+            anotadosAlRotar = anotados;
+        } finally {
+            lock.unlock();
+        }
+        anterior.close();
+        return generacion;
+    }
+
+    // Borra los snapshots y segmentos que quedaron cubiertos por el snapshot de 'generacion'
+    void borrarAnteriores(long generacion) throws IOException {
+        for (Path archivo : archivos(directorio)) {
+            long numero = generacion(archivo);
+            if (numero < generacion) {
+                Files.deleteIfExists(archivo);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            cerrado = true;
+            hayPendientes.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            escritor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrumpido cerrando el journal de citas");
+        }
+        canal.close();
+        cerrojo.channel().close();
+        if (falla != null) {
+            throw new IOException("El journal de citas no pudo escribir todos los registros", falla);
+        }
+    }
+
+    private void escribirPendientes() {
+        while (true) {
+            ByteBuffer tanda;
+            long hasta;
+            FileChannel destino;
+            lock.lock();
+            try {
+                while (pendiente.position() == 0 && !cerrado) {
+                    hayPendientes.awaitUninterruptibly();
+                }
+                if (pendiente.position() == 0) {
+                    return;
+                }
+                tanda = pendiente;
+                pendiente = enVuelo;
+                enVuelo = tanda;
+                hasta = anotados;
+                destino = canal;
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                tanda.flip();
+                while (tanda.hasRemaining()) {
+                    destino.write(tanda);
+                }
+                destino.force(false);
+                tanda.clear();
+            } catch (IOException e) {
+                lock.lock();
+                try {
+                    falla = e;
+                    hayDurables.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                return;
+            }
+
+            lock.lock();
+            try {
+                durables = hasta;
+                hayDurables.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Un solo proceso (y un solo manager) puede usar el directorio a la vez
+    static FileLock bloquearDirectorio(Path directorio) throws IOException {
+        FileChannel canal = FileChannel.open(directorio.resolve("citas.lock"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock cerrojo;
+        try {
+            cerrojo = canal.tryLock();
+        } catch (OverlappingFileLockException e) {
+            cerrojo = null;
+        }
+        if (cerrojo == null) {
+            canal.close();
+            throw new IOException("El directorio del journal de citas ya está en uso: " + directorio);
+        }
+        return cerrojo;
+    }
+
+    private FileChannel abrirSegmento(long generacion) throws IOException {
+        return FileChannel.open(rutaSegmento(directorio, generacion),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    static Path rutaSegmento(Path directorio, long generacion) {
+        return directorio.resolve("citas-" + generacion + ".journal");
+    }
+
+    static Path rutaSnapshot(Path directorio, long generacion) {
+        return directorio.resolve("citas-" + generacion + ".snap");
+    }
+
+    // Generacion del snapshot más reciente, o -1 si no hay ninguno
+    static long ultimoSnapshot(Path directorio) throws IOException {
+        long ultimo = -1;
+        for (Path archivo : archivos(directorio)) {
+            if (archivo.getFileName().toString().endsWith(".snap")) {
+                ultimo = Math.max(ultimo, generacion(archivo));
+            }
+        }
+        return ultimo;
+    }
+
+    // Segmentos con generacion >= 'desde', en orden
+    static List<Path> segmentosDesde(Path directorio, long desde) throws IOException {
+        List<Path> segmentos = new ArrayList<>();
+        for (Path archivo : archivos(directorio)) {
+            if (archivo.getFileName().toString().endsWith(".journal") && generacion(archivo) >= desde) {
+                segmentos.add(archivo);
+            }
+        }
+        segmentos.sort((a, b) -> Long.compare(generacion(a), generacion(b)));
+        return segmentos;
+    }
+
+    static long generacion(Path archivo) {
+        Matcher matcher = NOMBRE_ARCHIVO.matcher(archivo.getFileName().toString());
+        return matcher.matches() ? Long.parseLong(matcher.group(1)) : -1;
+    }
+
+    private static List<Path> archivos(Path directorio) throws IOException {
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            return archivos.filter(archivo -> generacion(archivo) >= 0).toList();
+        }
+    }
+
+    // Reproduce un segmento sobre el destino. Devuelve false si el segmento termina en un registro
+    // cortado o corrupto (lo normal despues de una caida); lo que sigue a ese punto se descarta.
+    static boolean reproducir(Path segmento, Map<String, Paciente> pacientes, Map<String, Medico> medicos,
+                              Map<String, Sala> salas, DestinoJournal destino, ReporteImportacion reporte)
+            throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel canal = FileChannel.open(segmento, StandardOpenOption.READ)) {
+            long tamanio = canal.size();
+            if (tamanio > Integer.MAX_VALUE) {
+                throw new IOException("Segmento de journal demasiado grande para mapear: " + segmento);
+            }
+            buffer = canal.map(FileChannel.MapMode.READ_ONLY, 0, tamanio);
+        }
+
+        CRC32 crc = new CRC32();
+        long numero = 0;
+        while (buffer.hasRemaining()) {
+            if (buffer.remaining() < CABECERA) {
+                return false;
+            }
+            int largo = buffer.getInt();
+            int esperado = buffer.getInt();
+            if (largo <= 0 || largo > buffer.remaining()) {
+                return false;
+            }
+            ByteBuffer registro = buffer.slice(buffer.position(), largo);
+            crc.reset();
+            crc.update(registro.duplicate());
+            if ((int) crc.getValue() != esperado) {
+                return false;
+            }
+            buffer.position(buffer.position() + largo);
+            numero++;
+
+            try {
+                aplicar(registro, pacientes, medicos, salas, destino);
+                reporte.aceptada();
+            } catch (CitaException e) {
+                reporte.rechazada(numero, e.getMessage());
+            } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalStateException
+                     | IllegalArgumentException | DateTimeException e) {
+                throw new IOException("Registro de journal mal formado en " + segmento + " (registro " + numero + ")", e);
+            }
+        }
+        return true;
+    }
+
+    private static void aplicar(ByteBuffer registro, Map<String, Paciente> pacientes, Map<String, Medico> medicos,
+                                Map<String, Sala> salas, DestinoJournal destino) throws CitaException {
+        byte tipo = registro.get();
+        if (tipo == PROGRAMADA) {
+            String dniPaciente = CodificacionBinaria.leerTexto(registro);
+            String dniMedico = CodificacionBinaria.leerTexto(registro);
+            String numeroSala = CodificacionBinaria.leerTexto(registro);
+            LocalDateTime fechaHora = leerFecha(registro);
+            int escala = CodificacionBinaria.leerVarInt(registro);
+            long costo = CodificacionBinaria.desZigzag(CodificacionBinaria.leerVarLong(registro));
+            EstadoCita estado = leerEstado(registro);
+            String observaciones = CodificacionBinaria.leerTexto(registro);
+
+            Paciente paciente = pacientes.get(dniPaciente);
+            Medico medico = medicos.get(dniMedico);
+            Sala sala = salas.get(numeroSala);
+            if (paciente == null) throw new CitaException(MotivoRechazo.NO_ENCONTRADA, "Paciente no encontrado: " + dniPaciente);
+            if (medico == null) throw new CitaException(MotivoRechazo.NO_ENCONTRADA, "Médico no encontrado: " + dniMedico);
+            if (sala == null) throw new CitaException(MotivoRechazo.NO_ENCONTRADA, "Sala no encontrada: " + numeroSala);
+
+            destino.programada(Cita.builder()
+                    .paciente(paciente)
+                    .medico(medico)
+                    .sala(sala)
+                    .fechaHora(fechaHora)
+                    .costo(BigDecimal.valueOf(costo, escala))
+                    .estado(estado)
+                    .observaciones(observaciones)
+                    .build());
+        } else if (tipo == CAMBIO_ESTADO) {
+            String dniMedico = CodificacionBinaria.leerTexto(registro);
+            LocalDateTime fechaHora = leerFecha(registro);
+            EstadoCita estado = leerEstado(registro);
+
+            Medico medico = medicos.get(dniMedico);
+            if (medico == null) throw new CitaException(MotivoRechazo.NO_ENCONTRADA, "Médico no encontrado: " + dniMedico);
+            destino.cambioEstado(medico, fechaHora, estado);
+        } else {
+            throw new IllegalStateException("Tipo de registro desconocido: " + tipo);
+        }
+    }
+
+    private static LocalDateTime leerFecha(ByteBuffer registro) {
+        long segundos = CodificacionBinaria.desZigzag(CodificacionBinaria.leerVarLong(registro));
+        return LocalDateTime.ofEpochSecond(segundos, CodificacionBinaria.leerVarInt(registro), ZoneOffset.UTC);
+    }
+
+    private static EstadoCita leerEstado(ByteBuffer registro) throws CitaException {
+        int ordinal = registro.get() & 0xFF;
+        EstadoCita[] estados = EstadoCita.values();
+        if (ordinal >= estados.length) {
+            throw new CitaException(MotivoRechazo.FORMATO_INVALIDO, "Estado inválido en el journal: " + ordinal);
+        }
+        return estados[ordinal];
+    }
+}
@@ -0,0 +1,87 @@
+package servicios;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+// Modelo de lectura para listados: cada consulta arma records (FilaAgenda, ResumenPaciente, FilaPlantel)
+// con una expresión constructora de JPQL, así que lee solo las columnas que se muestran y no deja
+// entidades en el contexto de persistencia (ni sus copias para el dirty checking, ni proxies).
+// Las sesiones son de solo lectura y sin flush. Para modificar algo hay que ir por las entidades.
+public class LecturasHospital {
+    private static final String AGENDA =
+            "SELECT new servicios.FilaAgenda(c.id, c.fechaHora, c.estado, c.costo, " +
+            "p.id, CONCAT(p.nombre, ' ', p.apellido), p.dni, m.id, CONCAT(m.nombre, ' ', m.apellido), s.numero) " +
+            "FROM Cita c JOIN c.paciente p JOIN c.medico m JOIN c.sala s ";
+
+    private final EntityManagerFactory emf;
+
+    public LecturasHospital(EntityManagerFactory emf) {
+        this.emf = Objects.requireNonNull(emf, "El EntityManagerFactory no puede ser nulo");
+    }
+
+    // Citas del médico que empiezan en [desde, hasta), por fecha
+    public List<FilaAgenda> agendaMedico(Long medicoId, LocalDateTime desde, LocalDateTime hasta) {
+        return agenda("medico", medicoId, desde, hasta);
+    }
+
+    public List<FilaAgenda> agendaPaciente(Long pacienteId, LocalDateTime desde, LocalDateTime hasta) {
+        return agenda("paciente", pacienteId, desde, hasta);
+    }
+
+    public List<ResumenPaciente> resumenPacientes(Long hospitalId) {
+        return leer(em -> em.createQuery(
+                        "SELECT new servicios.ResumenPaciente(p.id, p.dni, p.nombre, p.apellido, p.fechaNacimiento, " +
+                        "p.tipoSangre, h.numeroHistoria, (SELECT COUNT(c) FROM Cita c WHERE c.paciente = p), " +
+                        "SIZE(h.alergias)) " +
+                        "FROM Paciente p LEFT JOIN p.historiaClinica h WHERE p.hospital.id = :id " +
+                        "ORDER BY p.apellido, p.nombre, p.id", ResumenPaciente.class)
+                .setParameter("id", hospitalId));
+    }
+
+    // Médicos de cada departamento, ordenados por departamento y apellido
+    public List<FilaPlantel> plantel(Long hospitalId) {
+        return leer(em -> em.createQuery(
+                        "SELECT new servicios.FilaPlantel(d.id, d.nombre, d.especialidad, m.id, m.nombre, " +
+                        "m.apellido, m.matricula.numero) " +
+                        "FROM Medico m JOIN m.departamento d WHERE d.hospital.id = :id " +
+                        "ORDER BY d.nombre, d.id, m.apellido, m.nombre", FilaPlantel.class)
+                .setParameter("id", hospitalId));
+    }
+
+    private List<FilaAgenda> agenda(String relacion, Long id, LocalDateTime desde, LocalDateTime hasta) {
+        if (id == null || !desde.isBefore(hasta)) {
+            return Collections.emptyList();
+        }
+        // Mismo orden que los índices de Cita (recurso, fecha_hora, id), ver CitaManagerJpa.paginar
+        return leer(em -> em.createQuery(AGENDA + "WHERE c." + relacion + ".id = :id " +
+                        "AND c.fechaHora >= :desde AND c.fechaHora < :hasta " +
+                        "ORDER BY c." + relacion + ".id, c.fechaHora, c.id", FilaAgenda.class)
+                .setParameter("id", id)
+                .setParameter("desde", desde)
+                .setParameter("hasta", hasta));
+    }
+
+    private <T> List<T> leer(Function<EntityManager, TypedQuery<T>> consulta) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            Session sesion = em.unwrap(Session.class);
+            sesion.setDefaultReadOnly(true);
+            sesion.setHibernateFlushMode(FlushMode.MANUAL);
+            return Collections.unmodifiableList(consulta.apply(em)
+                    .setHint(HibernateHints.HINT_READ_ONLY, true)
+                    .getResultList());
+        } finally {
+            em.close();
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package servicios;
+
+import com.sun.net.httpserver.HttpServer;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Métricas de CitaManager: latencia por operación (HistogramaLatencia), errores por operación,
+// rechazos de reservas por motivo y filas importadas. Registrar no toma locks ni reserva memoria, asi
+// que se puede dejar encendido en producción; leer (instantánea o Prometheus) recorre los histogramas.
+// Un mismo objeto se puede compartir entre varios managers para sumar sus números.
+public class MetricasCitas {
+    public enum Operacion {
+        PROGRAMAR_CITA, PROGRAMAR_LOTE, CAMBIAR_ESTADO, CONSULTA, BUSCAR_TURNO,
+        CARGAR_CITAS, GUARDAR_CITAS, CARGAR_SNAPSHOT, GUARDAR_SNAPSHOT, COMPACTAR_JOURNAL
+    }
+
+    private static final double[] CUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final Map<Operacion, HistogramaLatencia> latencias = new EnumMap<>(Operacion.class);
+    private final Map<Operacion, LongAdder> errores = new EnumMap<>(Operacion.class);
+    private final Map<MotivoRechazo, LongAdder> rechazos = new EnumMap<>(MotivoRechazo.class);
+    private final LongAdder filasImportadas = new LongAdder();
+    private final LongAdder filasRechazadas = new LongAdder();
+
+    public MetricasCitas() {
+        for (Operacion operacion : Operacion.values()) {
+            latencias.put(operacion, new HistogramaLatencia());
+            errores.put(operacion, new LongAdder());
+        }
+        for (MotivoRechazo motivo : MotivoRechazo.values()) {
+            rechazos.put(motivo, new LongAdder());
+        }
+    }
+
+    // Latencia desde 'inicioNanos' (System.nanoTime) hasta ahora
+    public void registrar(Operacion operacion, long inicioNanos) {
+        latencias.get(operacion).registrar(System.nanoTime() - inicioNanos);
+    }
+
+    // Operación que terminó con una excepción que no es un rechazo (p. ej. IOException)
+    public void error(Operacion operacion) {
+        errores.get(operacion).increment();
+    }
+
+    public void rechazo(MotivoRechazo motivo) {
+        rechazos.get(motivo != null ? motivo : MotivoRechazo.OTRO).increment();
+    }
+
+    public void importacion(ReporteImportacion reporte) {
+        filasImportadas.add(reporte.getFilasAceptadas());
+        filasRechazadas.add(reporte.getFilasRechazadas());
+    }
+
+    public HistogramaLatencia getLatencia(Operacion operacion) {
+        return latencias.get(operacion);
+    }
+
+    public Instantanea tomarInstantanea() {
+        Map<Operacion, ResumenOperacion> operaciones = new EnumMap<>(Operacion.class);
+        for (Operacion operacion : Operacion.values()) {
+            operaciones.put(operacion, new ResumenOperacion(latencias.get(operacion), errores.get(operacion).sum()));
+        }
+        Map<MotivoRechazo, Long> porMotivo = new EnumMap<>(MotivoRechazo.class);
+        for (MotivoRechazo motivo : MotivoRechazo.values()) {
+            porMotivo.put(motivo, rechazos.get(motivo).sum());
+        }
+        return new Instantanea(operaciones, porMotivo, filasImportadas.sum(), filasRechazadas.sum());
+    }
+
+    // Formato de texto de Prometheus (version 0.0.4). La latencia va como summary en segundos
+    public void escribirPrometheus(Writer writer) throws IOException {
+        writer.write("# HELP citas_operacion_segundos Latencia de las operaciones de CitaManager.\n");
+        writer.write("# TYPE citas_operacion_segundos summary\n");
+        for (Operacion operacion : Operacion.values()) {
+            HistogramaLatencia histograma = latencias.get(operacion);
+            String etiqueta = "operacion=\"" + nombre(operacion) + "\"";
+            for (double cuantil : CUANTILES) {
+                linea(writer, "citas_operacion_segundos{" + etiqueta + ",quantile=\"" + cuantil + "\"}",
+                        histograma.percentil(cuantil * 100) / 1e9);
+            }
+            linea(writer, "citas_operacion_segundos_sum{" + etiqueta + "}", histograma.getSuma() / 1e9);
+            writer.write("citas_operacion_segundos_count{" + etiqueta + "} " + histograma.getCantidad() + "\n");
+        }
+
+        writer.write("# HELP citas_operacion_errores_total Operaciones que terminaron con error.\n");
+        writer.write("# TYPE citas_operacion_errores_total counter\n");
+        for (Operacion operacion : Operacion.values()) {
+            writer.write("citas_operacion_errores_total{operacion=\"" + nombre(operacion) + "\"} "
+                    + errores.get(operacion).sum() + "\n");
+        }
+
+        writer.write("# HELP citas_rechazos_total Reservas y cambios de estado rechazados, por motivo.\n");
+        writer.write("# TYPE citas_rechazos_total counter\n");
+        for (MotivoRechazo motivo : MotivoRechazo.values()) {
+            writer.write("citas_rechazos_total{motivo=\"" + nombre(motivo) + "\"} " + rechazos.get(motivo).sum() + "\n");
+        }
+
+        writer.write("# HELP citas_filas_importadas_total Filas aceptadas en cargas de CSV o snapshot.\n");
+        writer.write("# TYPE citas_filas_importadas_total counter\n");
+        writer.write("citas_filas_importadas_total " + filasImportadas.sum() + "\n");
+        writer.write("# HELP citas_filas_rechazadas_total Filas rechazadas en cargas de CSV o snapshot.\n");
+        writer.write("# TYPE citas_filas_rechazadas_total counter\n");
+        writer.write("citas_filas_rechazadas_total " + filasRechazadas.sum() + "\n");
+    }
+
+    public String toPrometheus() {
+        StringWriter writer = new StringWriter();
+        try {
+            escribirPrometheus(writer);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return writer.toString();
+    }
+
+    // Para el textfile collector de node_exporter: se escribe aparte y se renombra, nunca queda a medias
+    public void exportarPrometheus(Path archivo) throws IOException {
+        Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        Files.writeString(temporal, toPrometheus(), StandardCharsets.UTF_8);
+        Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Endpoint local GET /metrics. Quien lo abre lo cierra con stop()
+    public HttpServer servirPrometheus(InetSocketAddress direccion) throws IOException {
+        HttpServer servidor = HttpServer.create(direccion, 0);
+        servidor.createContext("/metrics", intercambio -> {
+            byte[] cuerpo = toPrometheus().getBytes(StandardCharsets.UTF_8);
+            intercambio.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            intercambio.sendResponseHeaders(200, cuerpo.length);
+            try (OutputStream salida = intercambio.getResponseBody()) {
+                salida.write(cuerpo);
+            }
+        });
+        servidor.start();
+        return servidor;
+    }
+
+    private static void linea(Writer writer, String nombre, double valor) throws IOException {
+        writer.write(nombre + " " + valor + "\n");
+    }
+
+    private static String nombre(Enum<?> valor) {
+        return valor.name().toLowerCase(Locale.ROOT);
+    }
+
+    @Getter
+    @ToString
+    public static class ResumenOperacion {
+        private final long cantidad;
+        private final long errores;
+        private final double mediaNanos;
+        private final long p50Nanos;
+        private final long p90Nanos;
+        private final long p99Nanos;
+        private final long p999Nanos;
+        private final long maximoNanos;
+
+        ResumenOperacion(HistogramaLatencia histograma, long errores) {
+            this.cantidad = histograma.getCantidad();
+            this.errores = errores;
+            this.mediaNanos = histograma.getMedia();
+            this.p50Nanos = histograma.percentil(50);
+            this.p90Nanos = histograma.percentil(90);
+            this.p99Nanos = histograma.percentil(99);
+            this.p999Nanos = histograma.percentil(99.9);
+            this.maximoNanos = histograma.getMaximo();
+        }
+    }
+
+    // Copia de los valores en un momento; los contadores se leen de a uno, no todos a la vez
+    @Getter
+    @ToString
+    public static class Instantanea {
+        private final Map<Operacion, ResumenOperacion> operaciones;
+        private final Map<MotivoRechazo, Long> rechazos;
+        private final long filasImportadas;
+        private final long filasRechazadas;
+
+        Instantanea(Map<Operacion, ResumenOperacion> operaciones, Map<MotivoRechazo, Long> rechazos,
+                    long filasImportadas, long filasRechazadas) {
+            this.operaciones = Collections.unmodifiableMap(operaciones);
+            this.rechazos = Collections.unmodifiableMap(rechazos);
+            this.filasImportadas = filasImportadas;
+            this.filasRechazadas = filasRechazadas;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package servicios;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.PoolStats;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.Getter;
+import lombok.ToString;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Métricas del pool de conexiones de HospitalJPA_PU (ProveedorConexionesHikari). Hikari las registra
+// en cada préstamo: cuánto esperó getConnection (adquisición), cuánto tuvo la conexión la sesión (uso)
+// y cuánto tardó en abrirse cada conexión física (uso y apertura llegan en milisegundos: los préstamos
+// cortos cuentan como 0). Activas, libres y hilos esperando las recalcula el pool cada segundo como mucho.
+// Una adquisición que crece junto con los hilos esperando es un pool chico para la concurrencia.
+public class MetricasPool implements IMetricsTracker {
+    private final String pool;
+    private final PoolStats estado;
+    private final HistogramaLatencia adquisicion = new HistogramaLatencia();
+    private final HistogramaLatencia uso = new HistogramaLatencia();
+    private final HistogramaLatencia creacion = new HistogramaLatencia();
+    private final LongAdder timeouts = new LongAdder();
+
+    MetricasPool(String pool, PoolStats estado) {
+        this.pool = pool;
+        this.estado = estado;
+    }
+
+    // Las del pool de la fábrica, o null si no usa ProveedorConexionesHikari
+    public static MetricasPool de(EntityManagerFactory emf) {
+        ConnectionProvider proveedor = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(ConnectionProvider.class);
+        return proveedor instanceof ProveedorConexionesHikari
+                ? ((ProveedorConexionesHikari) proveedor).getMetricas() : null;
+    }
+
+    @Override
+    public void recordConnectionAcquiredNanos(long nanos) {
+        adquisicion.registrar(nanos);
+    }
+
+    @Override
+    public void recordConnectionUsageMillis(long millis) {
+        uso.registrar(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    @Override
+    public void recordConnectionCreatedMillis(long millis) {
+        creacion.registrar(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    @Override
+    public void recordConnectionTimeout() {
+        timeouts.increment();
+    }
+
+    public HistogramaLatencia getAdquisicion() {
+        return adquisicion;
+    }
+
+    public HistogramaLatencia getUso() {
+        return uso;
+    }
+
+    public Instantanea tomarInstantanea() {
+        return new Instantanea(this);
+    }
+
+    // Formato de texto de Prometheus, como MetricasCitas: se puede escribir a continuación de esas
+    public void escribirPrometheus(Writer writer) throws IOException {
+        String etiqueta = "{pool=\"" + pool + "\"}";
+        writer.write("# HELP pool_conexiones Conexiones del pool por estado.\n");
+        writer.write("# TYPE pool_conexiones gauge\n");
+        writer.write("pool_conexiones{pool=\"" + pool + "\",estado=\"activas\"} " + estado.getActiveConnections() + "\n");
+        writer.write("pool_conexiones{pool=\"" + pool + "\",estado=\"libres\"} " + estado.getIdleConnections() + "\n");
+        writer.write("# HELP pool_conexiones_maximo Tamaño máximo del pool.\n");
+        writer.write("# TYPE pool_conexiones_maximo gauge\n");
+        writer.write("pool_conexiones_maximo" + etiqueta + " " + estado.getMaxConnections() + "\n");
+        writer.write("# HELP pool_hilos_esperando Hilos bloqueados en getConnection.\n");
+        writer.write("# TYPE pool_hilos_esperando gauge\n");
+        writer.write("pool_hilos_esperando" + etiqueta + " " + estado.getPendingThreads() + "\n");
+        writer.write("# HELP pool_timeouts_total Pedidos de conexión que vencieron connectionTimeout.\n");
+        writer.write("# TYPE pool_timeouts_total counter\n");
+        writer.write("pool_timeouts_total" + etiqueta + " " + timeouts.sum() + "\n");
+        resumen(writer, "pool_adquisicion_segundos", "Espera de getConnection hasta obtener una conexión.", adquisicion);
+        resumen(writer, "pool_uso_segundos", "Tiempo que cada conexión estuvo prestada.", uso);
+        resumen(writer, "pool_creacion_segundos", "Apertura de conexiones físicas.", creacion);
+    }
+
+    public String toPrometheus() {
+        StringWriter writer = new StringWriter();
+        try {
+            escribirPrometheus(writer);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return writer.toString();
+    }
+
+    private void resumen(Writer writer, String nombre, String ayuda, HistogramaLatencia histograma) throws IOException {
+        String etiqueta = "pool=\"" + pool + "\"";
+        writer.write("# HELP " + nombre + " " + ayuda + "\n");
+        writer.write("# TYPE " + nombre + " summary\n");
+        for (double cuantil : new double[]{0.5, 0.99}) {
+            writer.write(nombre + "{" + etiqueta + ",quantile=\"" + cuantil + "\"} "
+                    + histograma.percentil(cuantil * 100) / 1e9 + "\n");
+        }
+        writer.write(nombre + "_sum{" + etiqueta + "} " + histograma.getSuma() / 1e9 + "\n");
+        writer.write(nombre + "_count{" + etiqueta + "} " + histograma.getCantidad() + "\n");
+    }
+
+    @Getter
+    @ToString
+    public static class Instantanea {
+        private final String pool;
+        private final int activas;
+        private final int libres;
+        private final int maximo;
+        private final int hilosEsperando;
+        private final long timeouts;
+        private final long adquisiciones;
+        private final long adquisicionP50Nanos;
+        private final long adquisicionP99Nanos;
+        private final long adquisicionMaximoNanos;
+        private final long usoP50Nanos;
+        private final long usoP99Nanos;
+        private final long conexionesCreadas;
+        private final double creacionMediaNanos;
+
+        Instantanea(MetricasPool metricas) {
+            this.pool = metricas.pool;
+            this.activas = metricas.estado.getActiveConnections();
+            this.libres = metricas.estado.getIdleConnections();
+            this.maximo = metricas.estado.getMaxConnections();
+            this.hilosEsperando = metricas.estado.getPendingThreads();
+            this.timeouts = metricas.timeouts.sum();
+            this.adquisiciones = metricas.adquisicion.getCantidad();
+            this.adquisicionP50Nanos = metricas.adquisicion.percentil(50);
+            this.adquisicionP99Nanos = metricas.adquisicion.percentil(99);
+            this.adquisicionMaximoNanos = metricas.adquisicion.getMaximo();
+            this.usoP50Nanos = metricas.uso.percentil(50);
+            this.usoP99Nanos = metricas.uso.percentil(99);
+            this.conexionesCreadas = metricas.creacion.getCantidad();
+            this.creacionMediaNanos = metricas.creacion.getMedia();
+        }
+    }
+}
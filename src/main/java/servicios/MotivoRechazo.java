@@ -0,0 +1,23 @@
+package servicios;
+
+import lombok.Getter;
+
+// Causa de una CitaException, para contar los rechazos por motivo sin comparar mensajes
+@Getter
+public enum MotivoRechazo {
+    FECHA_PASADA("Fecha en el pasado"),
+    COSTO_INVALIDO("Costo inválido"),
+    MEDICO_OCUPADO("Médico no disponible"),
+    SALA_OCUPADA("Sala no disponible"),
+    ESPECIALIDAD_INCOMPATIBLE("Especialidad incompatible con la sala"),
+    DATOS_INCOMPLETOS("Datos incompletos"),
+    NO_ENCONTRADA("Entidad no encontrada"),
+    FORMATO_INVALIDO("Formato inválido"),
+    OTRO("Otro");
+
+    private final String descripcion;
+
+    MotivoRechazo(String descripcion) {
+        this.descripcion = descripcion;
+    }
+}
@@ -0,0 +1,26 @@
+package servicios;
+
+import entidades.Cita;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Collections;
+import java.util.List;
+
+// Una página de un listado de CitaManagerJpa. 'siguiente' se pasa tal cual para pedir la próxima
+// página; es null cuando esta es la última.
+@Getter
+@ToString
+public class PaginaCitas {
+    private final List<Cita> citas;
+    private final CursorCita siguiente;
+
+    PaginaCitas(List<Cita> citas, CursorCita siguiente) {
+        this.citas = Collections.unmodifiableList(citas);
+        this.siguiente = siguiente;
+    }
+
+    public boolean hayMas() {
+        return siguiente != null;
+    }
+}
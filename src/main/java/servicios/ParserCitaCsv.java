@@ -0,0 +1,223 @@
+package servicios;
+
+import entidades.*;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+// Parser de una línea CSV de cita (formato de Cita.toCsvString) leída directamente de un ByteBuffer.
+// Recorre los bytes una sola vez ubicando las comas; fecha, costo y estado se convierten sin crear Strings
+// intermedios. Aplica las mismas validaciones que Cita.fromCsvString.
+// No es thread-safe: cada hilo usa su propia instancia.
+class ParserCitaCsv {
+    private static final int CAMPOS = 7;
+    private static final byte[][] NOMBRES_ESTADO = new byte[EstadoCita.values().length][];
+
+    static {
+        for (EstadoCita estado : EstadoCita.values()) {
+            NOMBRES_ESTADO[estado.ordinal()] = estado.name().getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private final Map<String, Paciente> pacientes;
+    private final Map<String, Medico> medicos;
+    private final Map<String, Sala> salas;
+    // Referencia para rechazar citas pasadas; se toma una vez por carga y no por fila
+    private final LocalDateTime ahora = LocalDateTime.now();
+    private final int[] separadores = new int[CAMPOS + 1];
+    private byte[] auxiliar = new byte[256];
+
+    ParserCitaCsv(Map<String, Paciente> pacientes, Map<String, Medico> medicos, Map<String, Sala> salas) {
+        this.pacientes = pacientes;
+        this.medicos = medicos;
+        this.salas = salas;
+    }
+
+    // Parsea la línea [inicio, fin) sin el salto de línea
+    Cita parsear(ByteBuffer buffer, int inicio, int fin) throws CitaException {
+        separadores[0] = inicio - 1;
+        int campo = 1;
+        for (int i = inicio; i < fin && campo < CAMPOS; i++) {
+            if (buffer.get(i) == ',') {
+                separadores[campo++] = i;
+            }
+        }
+        if (campo != CAMPOS) {
+            throw new CitaException(MotivoRechazo.FORMATO_INVALIDO,
+                    "Formato de CSV inválido para Cita: se esperaban " + CAMPOS + " campos");
+        }
+        separadores[CAMPOS] = fin;
+
+        String dniPaciente = texto(buffer, 0, false);
+        String dniMedico = texto(buffer, 1, false);
+        String numeroSala = texto(buffer, 2, false);
+        LocalDateTime fechaHora = fecha(buffer, separadores[3] + 1, separadores[4]);
+        BigDecimal costo = costo(buffer, separadores[4] + 1, separadores[5]);
+        EstadoCita estado = estado(buffer, separadores[5] + 1, separadores[6]);
+
+        Paciente paciente = pacientes.get(dniPaciente);
+        Medico medico = medicos.get(dniMedico);
+        Sala sala = salas.get(numeroSala);
+
+        if (paciente == null) throw new CitaException(MotivoRechazo.NO_ENCONTRADA, "Paciente no encontrado: " + dniPaciente);
+        if (medico == null) throw new CitaException(MotivoRechazo.NO_ENCONTRADA, "Médico no encontrado: " + dniMedico);
+        if (sala == null) throw new CitaException(MotivoRechazo.NO_ENCONTRADA, "Sala no encontrada: " + numeroSala);
+
+        if (fechaHora.isBefore(ahora)) {
+            throw new CitaException(MotivoRechazo.FECHA_PASADA,
+                    "No se puede cargar una cita con fecha en el pasado: " + fechaHora);
+        }
+        if (costo.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new CitaException(MotivoRechazo.COSTO_INVALIDO, "El costo debe ser mayor que cero. Valor: " + costo);
+        }
+        if (!medico.getEspecialidad().equals(sala.getDepartamento().getEspecialidad())) {
+            throw new CitaException(MotivoRechazo.ESPECIALIDAD_INCOMPATIBLE,
+                    "La especialidad del médico no coincide con el departamento de la sala.");
+        }
+
+        return Cita.builder()
+                .paciente(paciente)
+                .medico(medico)
+                .sala(sala)
+                .fechaHora(fechaHora)
+                .costo(costo)
+                .estado(estado)
+                .observaciones(texto(buffer, 6, true))
+                .build();
+    }
+
+    private String texto(ByteBuffer buffer, int campo, boolean observaciones) {
+        int desde = separadores[campo] + 1;
+        int largo = separadores[campo + 1] - desde;
+        if (largo > auxiliar.length) {
+            auxiliar = new byte[Math.max(largo, auxiliar.length * 2)];
+        }
+        buffer.get(desde, auxiliar, 0, largo);
+        // toCsvString guarda las comas de las observaciones como ';'
+        if (observaciones) {
+            for (int i = 0; i < largo; i++) {
+                if (auxiliar[i] == ';') {
+                    auxiliar[i] = ',';
+                }
+            }
+        }
+        // Todo el archivo es UTF-8, como lo escriben guardarCitas y ExportadorCitas
+        return new String(auxiliar, 0, largo, StandardCharsets.UTF_8);
+    }
+
+    // Formato de LocalDateTime.toString(): uuuu-MM-ddTHH:mm[:ss[.fffffffff]]
+    private LocalDateTime fecha(ByteBuffer buffer, int desde, int hasta) throws CitaException {
+        int largo = hasta - desde;
+        if (largo < 16 || buffer.get(desde + 4) != '-' || buffer.get(desde + 7) != '-'
+                || buffer.get(desde + 10) != 'T' || buffer.get(desde + 13) != ':') {
+            throw new CitaException(MotivoRechazo.FORMATO_INVALIDO, "Fecha inválida en CSV de Cita");
+        }
+        int anio = digitos(buffer, desde, 4);
+        int mes = digitos(buffer, desde + 5, 2);
+        int dia = digitos(buffer, desde + 8, 2);
+        int hora = digitos(buffer, desde + 11, 2);
+        int minuto = digitos(buffer, desde + 14, 2);
+        int segundo = 0;
+        int nanos = 0;
+        if (largo > 16) {
+            if (largo < 19 || buffer.get(desde + 16) != ':') {
+                throw new CitaException(MotivoRechazo.FORMATO_INVALIDO, "Fecha inválida en CSV de Cita");
+            }
+            segundo = digitos(buffer, desde + 17, 2);
+            if (largo > 19) {
+                int cifras = largo - 20;
+                if (buffer.get(desde + 19) != '.' || cifras < 1 || cifras > 9) {
+                    throw new CitaException(MotivoRechazo.FORMATO_INVALIDO, "Fecha inválida en CSV de Cita");
+                }
+                nanos = digitos(buffer, desde + 20, cifras);
+                for (int i = cifras; i < 9; i++) {
+                    nanos *= 10;
+                }
+            }
+        }
+        try {
+            return LocalDateTime.of(anio, mes, dia, hora, minuto, segundo, nanos);
+        } catch (DateTimeException e) {
+            throw new CitaException(MotivoRechazo.FORMATO_INVALIDO,
+                    "Fecha inválida en CSV de Cita: " + e.getMessage(), e);
+        }
+    }
+
+    private int digitos(ByteBuffer buffer, int desde, int cantidad) throws CitaException {
+        int valor = 0;
+        for (int i = desde; i < desde + cantidad; i++) {
+            int digito = buffer.get(i) - '0';
+            if (digito < 0 || digito > 9) {
+                throw new CitaException(MotivoRechazo.FORMATO_INVALIDO, "Fecha inválida en CSV de Cita");
+            }
+            valor = valor * 10 + digito;
+        }
+        return valor;
+    }
+
+    private BigDecimal costo(ByteBuffer buffer, int desde, int hasta) throws CitaException {
+        int i = desde;
+        boolean negativo = i < hasta && buffer.get(i) == '-';
+        if (negativo) {
+            i++;
+        }
+        long sinEscala = 0;
+        int escala = -1;
+        int cifras = 0;
+        for (; i < hasta; i++) {
+            byte b = buffer.get(i);
+            if (b == '.' && escala < 0) {
+                escala = 0;
+            } else if (b >= '0' && b <= '9') {
+                if (++cifras > 18) {
+                    return costoLargo(buffer, desde, hasta);
+                }
+                sinEscala = sinEscala * 10 + (b - '0');
+                if (escala >= 0) {
+                    escala++;
+                }
+            } else {
+                throw new CitaException(MotivoRechazo.FORMATO_INVALIDO, "Costo inválido en CSV de Cita");
+            }
+        }
+        if (cifras == 0) {
+            throw new CitaException(MotivoRechazo.FORMATO_INVALIDO, "Costo inválido en CSV de Cita");
+        }
+        return BigDecimal.valueOf(negativo ? -sinEscala : sinEscala, Math.max(escala, 0));
+    }
+
+    private BigDecimal costoLargo(ByteBuffer buffer, int desde, int hasta) throws CitaException {
+        int largo = hasta - desde;
+        byte[] bytes = new byte[largo];
+        buffer.get(desde, bytes, 0, largo);
+        try {
+            return new BigDecimal(new String(bytes, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            throw new CitaException(MotivoRechazo.FORMATO_INVALIDO, "Costo inválido en CSV de Cita", e);
+        }
+    }
+
+    private EstadoCita estado(ByteBuffer buffer, int desde, int hasta) throws CitaException {
+        int largo = hasta - desde;
+        for (EstadoCita estado : EstadoCita.values()) {
+            byte[] nombre = NOMBRES_ESTADO[estado.ordinal()];
+            if (nombre.length == largo && coincide(buffer, desde, nombre)) {
+                return estado;
+            }
+        }
+        throw new CitaException(MotivoRechazo.FORMATO_INVALIDO, "Estado inválido en CSV de Cita");
+    }
+
+    private boolean coincide(ByteBuffer buffer, int desde, byte[] nombre) {
+        for (int i = 0; i < nombre.length; i++) {
+            if (buffer.get(desde + i) != nombre[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
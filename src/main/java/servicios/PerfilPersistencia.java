@@ -0,0 +1,53 @@
+package servicios;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Perfiles de configuración sobre HospitalJPA_PU. persistence.xml queda como está (SQL a stdout, útil
+// para ver qué hace Hibernate); los perfiles pisan propiedades al crear la fábrica.
+//   DESARROLLO: persistence.xml tal cual.
+//   MEDICION:   sin SQL a stdout, con Statistics de Hibernate y log de consultas lentas
+//               (logger org.hibernate.SQL_SLOW) a partir de umbralConsultaLentaMs.
+// Se elige con -Dhospital.perfil=medicion y el umbral con -Dhospital.consultaLentaMs=50.
+public enum PerfilPersistencia {
+    DESARROLLO,
+    MEDICION;
+
+    public static final String UNIDAD = "HospitalJPA_PU";
+    public static final long UMBRAL_CONSULTA_LENTA_MS_POR_DEFECTO = 50;
+
+    public static PerfilPersistencia desdeSistema() {
+        return valueOf(System.getProperty("hospital.perfil", DESARROLLO.name()).toUpperCase());
+    }
+
+    public static long umbralConsultaLentaMs() {
+        return Long.getLong("hospital.consultaLentaMs", UMBRAL_CONSULTA_LENTA_MS_POR_DEFECTO);
+    }
+
+    public Map<String, Object> propiedades() {
+        Map<String, Object> propiedades = new HashMap<>();
+        if (this == MEDICION) {
+            propiedades.put("hibernate.show_sql", "false");
+            propiedades.put("hibernate.format_sql", "false");
+            propiedades.put("hibernate.generate_statistics", "true");
+            // Sin el resumen por sesión que Statistics loguea por defecto: bajo carga es una línea por sesión
+            propiedades.put("hibernate.session.events.log", "false");
+            propiedades.put("hibernate.log_slow_query", String.valueOf(umbralConsultaLentaMs()));
+        }
+        return propiedades;
+    }
+
+    public EntityManagerFactory crearEmf() {
+        return crearEmf(Map.of());
+    }
+
+    // 'extra' se aplica despues del perfil (p. ej. otra URL de base)
+    public EntityManagerFactory crearEmf(Map<String, ?> extra) {
+        Map<String, Object> propiedades = propiedades();
+        propiedades.putAll(extra);
+        return Persistence.createEntityManagerFactory(UNIDAD, propiedades);
+    }
+}
@@ -0,0 +1,101 @@
+package servicios;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.service.UnknownUnwrapTypeException;
+import org.hibernate.service.spi.Configurable;
+import org.hibernate.service.spi.Stoppable;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Properties;
+
+// ConnectionProvider de HospitalJPA_PU sobre un pool HikariCP, en lugar del de DriverManager que trae
+// Hibernate (sin validación, sin timeouts ni métricas; la documentación lo da solo para desarrollo).
+// URL, usuario, clave y driver salen de las propiedades jakarta.persistence.jdbc.*, así que las
+// herramientas que pisan la URL siguen funcionando. Lo demás va con el prefijo hibernate.hikari. y el
+// nombre de la propiedad de HikariConfig (ver persistence.xml), p. ej. hibernate.hikari.maximumPoolSize.
+// Las métricas del pool se leen con MetricasPool.de(emf).
+public class ProveedorConexionesHikari implements ConnectionProvider, Configurable, Stoppable {
+    public static final String PREFIJO = "hibernate.hikari.";
+
+    private HikariDataSource dataSource;
+    private MetricasPool metricas;
+
+    @Override
+    public void configure(Map<String, Object> propiedades) {
+        Properties hikari = new Properties();
+        for (Map.Entry<String, Object> propiedad : propiedades.entrySet()) {
+            if (propiedad.getKey().startsWith(PREFIJO) && propiedad.getValue() != null) {
+                hikari.setProperty(propiedad.getKey().substring(PREFIJO.length()), propiedad.getValue().toString());
+            }
+        }
+        copiar(propiedades, hikari, "jdbcUrl", "jakarta.persistence.jdbc.url", "hibernate.connection.url");
+        copiar(propiedades, hikari, "username", "jakarta.persistence.jdbc.user", "hibernate.connection.username");
+        copiar(propiedades, hikari, "password", "jakarta.persistence.jdbc.password", "hibernate.connection.password");
+        copiar(propiedades, hikari, "driverClassName", "jakarta.persistence.jdbc.driver",
+                "hibernate.connection.driver_class");
+
+        HikariConfig config = new HikariConfig(hikari);
+        config.setMetricsTrackerFactory((pool, estado) -> metricas = new MetricasPool(pool, estado));
+        // Abre las conexiones mínimas acá: la primera reserva no paga la apertura
+        dataSource = new HikariDataSource(config);
+    }
+
+    private static void copiar(Map<String, Object> propiedades, Properties hikari, String destino,
+                               String... origenes) {
+        for (String origen : origenes) {
+            Object valor = propiedades.get(origen);
+            if (valor != null) {
+                hikari.setProperty(destino, valor.toString());
+                return;
+            }
+        }
+    }
+
+    public MetricasPool getMetricas() {
+        return metricas;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return dataSource.getConnection();
+    }
+
+    // Devuelve la conexión al pool, no la cierra
+    @Override
+    public void closeConnection(Connection connection) throws SQLException {
+        connection.close();
+    }
+
+    @Override
+    public boolean supportsAggressiveRelease() {
+        return false;
+    }
+
+    @Override
+    public void stop() {
+        if (dataSource != null) {
+            dataSource.close();
+        }
+    }
+
+    @Override
+    public boolean isUnwrappableAs(Class<?> tipo) {
+        return tipo.isAssignableFrom(ProveedorConexionesHikari.class) || tipo.isAssignableFrom(HikariDataSource.class);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> tipo) {
+        if (tipo.isAssignableFrom(ProveedorConexionesHikari.class)) {
+            return (T) this;
+        }
+        if (tipo.isAssignableFrom(HikariDataSource.class)) {
+            return (T) dataSource;
+        }
+        throw new UnknownUnwrapTypeException(tipo);
+    }
+}
@@ -0,0 +1,16 @@
+package servicios;
+
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+public class RechazoImportacion {
+    private final long numeroLinea;
+    private final String motivo;
+
+    RechazoImportacion(long numeroLinea, String motivo) {
+        this.numeroLinea = numeroLinea;
+        this.motivo = motivo;
+    }
+}
@@ -0,0 +1,208 @@
+package servicios;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.Getter;
+import lombok.ToString;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.CollectionStatistics;
+import org.hibernate.stat.EntityStatistics;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+// Resumen de las Statistics de Hibernate de una fábrica (perfil MEDICION de PerfilPersistencia):
+// consultas JPQL con ejecuciones y tiempos, cargas y fetch por entidad y colección, y aciertos de la
+// caché de segundo nivel. Un fetch es una carga por un SELECT propio (lazy o secundario): una colección
+// o entidad con muchos fetch y pocas consultas es el síntoma típico de un N+1.
+@Getter
+@ToString
+public class ReporteEstadisticasJpa {
+    // A partir de cuántos fetch una entidad o colección se marca como posible N+1
+    public static final long FETCH_SOSPECHOSOS = 20;
+
+    private final boolean habilitadas;
+    private final long sesiones;
+    private final long transacciones;
+    private final long sentenciasPreparadas;
+    private final long flushes;
+    private final long consultasEjecutadas;
+    private final long consultaMasLentaMs;
+    private final String consultaMasLenta;
+    private final long aciertosCacheConsultas;
+    private final long fallosCacheConsultas;
+    private final List<Consulta> consultas;
+    private final List<Carga> entidades;
+    private final List<Carga> colecciones;
+    private final List<RegionCache> regionesCache;
+
+    private ReporteEstadisticasJpa(Statistics estadisticas) {
+        this.habilitadas = estadisticas.isStatisticsEnabled();
+        this.sesiones = estadisticas.getSessionOpenCount();
+        this.transacciones = estadisticas.getTransactionCount();
+        this.sentenciasPreparadas = estadisticas.getPrepareStatementCount();
+        this.flushes = estadisticas.getFlushCount();
+        this.consultasEjecutadas = estadisticas.getQueryExecutionCount();
+        this.consultaMasLentaMs = estadisticas.getQueryExecutionMaxTime();
+        this.consultaMasLenta = estadisticas.getQueryExecutionMaxTimeQueryString();
+        this.aciertosCacheConsultas = estadisticas.getQueryCacheHitCount();
+        this.fallosCacheConsultas = estadisticas.getQueryCacheMissCount();
+
+        List<Consulta> listaConsultas = new ArrayList<>();
+        for (String jpql : estadisticas.getQueries()) {
+            listaConsultas.add(new Consulta(jpql, estadisticas.getQueryStatistics(jpql)));
+        }
+        // Primero las que más tiempo total se llevaron
+        listaConsultas.sort(Comparator.comparingLong(Consulta::getTiempoTotalMs).reversed());
+        this.consultas = Collections.unmodifiableList(listaConsultas);
+
+        List<Carga> listaEntidades = new ArrayList<>();
+        for (String entidad : estadisticas.getEntityNames()) {
+            EntityStatistics e = estadisticas.getEntityStatistics(entidad);
+            listaEntidades.add(new Carga(entidad, e.getLoadCount(), e.getFetchCount(),
+                    e.getInsertCount(), e.getUpdateCount(), e.getDeleteCount()));
+        }
+        listaEntidades.sort(Comparator.comparingLong(Carga::getFetches).reversed());
+        this.entidades = Collections.unmodifiableList(listaEntidades);
+
+        List<Carga> listaColecciones = new ArrayList<>();
+        for (String rol : estadisticas.getCollectionRoleNames()) {
+            CollectionStatistics c = estadisticas.getCollectionStatistics(rol);
+            listaColecciones.add(new Carga(rol, c.getLoadCount(), c.getFetchCount(),
+                    c.getRecreateCount(), c.getUpdateCount(), c.getRemoveCount()));
+        }
+        listaColecciones.sort(Comparator.comparingLong(Carga::getFetches).reversed());
+        this.colecciones = Collections.unmodifiableList(listaColecciones);
+
+        List<RegionCache> listaRegiones = new ArrayList<>();
+        for (String region : estadisticas.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics r = estadisticas.getDomainDataRegionStatistics(region);
+            if (r != null) {
+                listaRegiones.add(new RegionCache(region, r));
+            }
+        }
+        this.regionesCache = Collections.unmodifiableList(listaRegiones);
+    }
+
+    public static ReporteEstadisticasJpa de(EntityManagerFactory emf) {
+        return new ReporteEstadisticasJpa(emf.unwrap(SessionFactory.class).getStatistics());
+    }
+
+    public void imprimir(PrintStream salida) {
+        if (!habilitadas) {
+            salida.println("Las estadísticas de Hibernate están apagadas (usar -Dhospital.perfil=medicion)");
+            return;
+        }
+        salida.printf("Sesiones: %d, transacciones: %d, sentencias preparadas: %d, flushes: %d%n",
+                sesiones, transacciones, sentenciasPreparadas, flushes);
+        salida.printf("Consultas ejecutadas: %d, la más lenta: %d ms%s%n", consultasEjecutadas,
+                consultaMasLentaMs, consultaMasLenta != null ? " (" + consultaMasLenta + ")" : "");
+
+        salida.println("\nConsultas JPQL (por tiempo total):");
+        salida.printf("  %8s %8s %9s %9s %8s  %s%n", "ejec.", "filas", "total ms", "prom. ms", "max ms", "consulta");
+        for (Consulta consulta : consultas) {
+            salida.printf("  %8d %8d %9d %9.1f %8d  %s%n", consulta.ejecuciones, consulta.filas,
+                    consulta.tiempoTotalMs, consulta.tiempoPromedioMs, consulta.tiempoMaximoMs, consulta.jpql);
+        }
+
+        imprimirCargas(salida, "Entidades", entidades, "altas", "modif.", "bajas");
+        imprimirCargas(salida, "Colecciones", colecciones, "recreadas", "modif.", "borradas");
+
+        if (!regionesCache.isEmpty() || aciertosCacheConsultas + fallosCacheConsultas > 0) {
+            salida.println("\nCaché de segundo nivel:");
+            for (RegionCache region : regionesCache) {
+                salida.printf("  %-45s aciertos %8d  fallos %8d  puts %8d  (%.0f%%)%n", region.region,
+                        region.aciertos, region.fallos, region.puts, region.getTasaAciertos() * 100);
+            }
+            salida.printf("  %-45s aciertos %8d  fallos %8d%n", "[consultas]", aciertosCacheConsultas,
+                    fallosCacheConsultas);
+        }
+    }
+
+    private static void imprimirCargas(PrintStream salida, String titulo, List<Carga> cargas,
+                                       String escrituras, String modificaciones, String borrados) {
+        salida.println("\n" + titulo + " (por fetch):");
+        salida.printf("  %8s %8s %9s %8s %8s  %s%n", "cargas", "fetch", escrituras, modificaciones, borrados, "nombre");
+        for (Carga carga : cargas) {
+            if (carga.cargas + carga.fetches + carga.escrituras + carga.modificaciones + carga.borrados == 0) {
+                continue;
+            }
+            salida.printf("  %8d %8d %9d %8d %8d  %s%s%n", carga.cargas, carga.fetches, carga.escrituras,
+                    carga.modificaciones, carga.borrados, carga.nombre,
+                    carga.isPosibleNMasUno() ? "  <- posible N+1" : "");
+        }
+    }
+
+    @Getter
+    @ToString
+    public static class Consulta {
+        private final String jpql;
+        private final long ejecuciones;
+        private final long filas;
+        private final long tiempoTotalMs;
+        private final double tiempoPromedioMs;
+        private final long tiempoMaximoMs;
+        private final long aciertosCache;
+
+        Consulta(String jpql, QueryStatistics estadisticas) {
+            this.jpql = jpql;
+            this.ejecuciones = estadisticas.getExecutionCount();
+            this.filas = estadisticas.getExecutionRowCount();
+            this.tiempoTotalMs = estadisticas.getExecutionTotalTime();
+            this.tiempoPromedioMs = ejecuciones == 0 ? 0 : (double) tiempoTotalMs / ejecuciones;
+            this.tiempoMaximoMs = estadisticas.getExecutionMaxTime();
+            this.aciertosCache = estadisticas.getCacheHitCount();
+        }
+    }
+
+    // Contadores de una entidad o colección. Para colecciones las escrituras son recreaciones
+    @Getter
+    @ToString
+    public static class Carga {
+        private final String nombre;
+        private final long cargas;
+        private final long fetches;
+        private final long escrituras;
+        private final long modificaciones;
+        private final long borrados;
+
+        Carga(String nombre, long cargas, long fetches, long escrituras, long modificaciones, long borrados) {
+            this.nombre = nombre;
+            this.cargas = cargas;
+            this.fetches = fetches;
+            this.escrituras = escrituras;
+            this.modificaciones = modificaciones;
+            this.borrados = borrados;
+        }
+
+        public boolean isPosibleNMasUno() {
+            return fetches >= FETCH_SOSPECHOSOS;
+        }
+    }
+
+    @Getter
+    @ToString
+    public static class RegionCache {
+        private final String region;
+        private final long aciertos;
+        private final long fallos;
+        private final long puts;
+
+        RegionCache(String region, CacheRegionStatistics estadisticas) {
+            this.region = region;
+            this.aciertos = estadisticas.getHitCount();
+            this.fallos = estadisticas.getMissCount();
+            this.puts = estadisticas.getPutCount();
+        }
+
+        public double getTasaAciertos() {
+            long total = aciertos + fallos;
+            return total == 0 ? 0 : (double) aciertos / total;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package servicios;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Resumen de una importación: cuántas filas se aceptaron y qué filas se rechazaron y por qué.
+// Se guarda el detalle de los primeros MAX_RECHAZOS_DETALLADOS rechazos; el resto solo se cuenta.
+@Getter
+@ToString(exclude = "rechazos")
+public class ReporteImportacion {
+    public static final int MAX_RECHAZOS_DETALLADOS = 10_000;
+
+    private long filasLeidas;
+    private long filasAceptadas;
+    private long filasRechazadas;
+    private final List<RechazoImportacion> rechazos = new ArrayList<>();
+
+    void aceptada() {
+        filasLeidas++;
+        filasAceptadas++;
+    }
+
+    void rechazada(long numeroLinea, String motivo) {
+        filasLeidas++;
+        filasRechazadas++;
+        if (rechazos.size() < MAX_RECHAZOS_DETALLADOS) {
+            rechazos.add(new RechazoImportacion(numeroLinea, motivo));
+        }
+    }
+
+    // Suma otro reporte a este; los motivos de sus rechazos llevan el origen (p. ej. el archivo) adelante
+    void agregar(ReporteImportacion otro, String origen) {
+        filasLeidas += otro.filasLeidas;
+        filasAceptadas += otro.filasAceptadas;
+        filasRechazadas += otro.filasRechazadas;
+        for (RechazoImportacion rechazo : otro.rechazos) {
+            if (rechazos.size() >= MAX_RECHAZOS_DETALLADOS) {
+                break;
+            }
+            rechazos.add(new RechazoImportacion(rechazo.getNumeroLinea(), origen + ": " + rechazo.getMotivo()));
+        }
+    }
+
+    public List<RechazoImportacion> getRechazos() {
+        return Collections.unmodifiableList(rechazos);
+    }
+}
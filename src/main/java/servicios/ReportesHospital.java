@@ -0,0 +1,82 @@
+package servicios;
+
+import entidades.Departamento;
+import entidades.Paciente;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.TypedQuery;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+// Reportes que recorren relaciones: cada uno trae de la base justo lo que muestra, con una cantidad fija
+// de consultas sin importar cuántos departamentos o pacientes haya. El grafo de entidad (fetchgraph)
+// trae lo de a uno en el mismo SELECT y las listas que no entran en ese JOIN se cargan por SUBSELECT
+// (ver el mapeo en Departamento y HistoriaClinica). Lo devuelto queda desasociado pero inicializado.
+public class ReportesHospital {
+    private static final String GRAFO = "jakarta.persistence.fetchgraph";
+
+    private final EntityManagerFactory emf;
+
+    public ReportesHospital(EntityManagerFactory emf) {
+        this.emf = Objects.requireNonNull(emf, "El EntityManagerFactory no puede ser nulo");
+    }
+
+    // Departamentos con médicos y salas: 2 consultas (departamentos + médicos, salas)
+    public List<Departamento> departamentosConPersonal(Long hospitalId) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            List<Departamento> departamentos = em.createQuery(
+                            "SELECT d FROM Departamento d WHERE d.hospital.id = :id ORDER BY d.nombre",
+                            Departamento.class)
+                    .setParameter("id", hospitalId)
+                    .setHint(GRAFO, em.getEntityGraph(Departamento.GRAFO_PERSONAL))
+                    .getResultList();
+            // Los getters devuelven vistas no modificables: size() llega a la colección. La primera que no
+            // está en la caché de segundo nivel dispara el SUBSELECT de todas las que faltan; hay que
+            // tocarlas todas porque si la primera sale de la caché no carga a las demás
+            for (Departamento departamento : departamentos) {
+                departamento.getSalas().size();
+            }
+            return Collections.unmodifiableList(departamentos);
+        } finally {
+            em.close();
+        }
+    }
+
+    // Pacientes con su historia clínica completa: 4 consultas (pacientes + historias, y una por lista)
+    public List<Paciente> pacientesConHistoria(Long hospitalId) {
+        return pacientesConHistoria("SELECT p FROM Paciente p WHERE p.hospital.id = :id ORDER BY p.apellido, p.nombre",
+                hospitalId, true);
+    }
+
+    // Solo se cargan las alergias: 2 consultas. Diagnósticos y tratamientos quedan sin inicializar
+    public List<Paciente> pacientesConAlergias() {
+        return pacientesConHistoria("SELECT p FROM Paciente p WHERE SIZE(p.historiaClinica.alergias) > 0 " +
+                "ORDER BY p.apellido, p.nombre", null, false);
+    }
+
+    private List<Paciente> pacientesConHistoria(String jpql, Long hospitalId, boolean completa) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            TypedQuery<Paciente> query = em.createQuery(jpql, Paciente.class)
+                    .setHint(GRAFO, em.getEntityGraph(Paciente.GRAFO_HISTORIA));
+            if (hospitalId != null) {
+                query.setParameter("id", hospitalId);
+            }
+            List<Paciente> pacientes = query.getResultList();
+            // Igual que con las salas: la primera de cada lista trae las de todas las historias
+            for (Paciente paciente : pacientes) {
+                paciente.getHistoriaClinica().getAlergias().size();
+                if (completa) {
+                    paciente.getHistoriaClinica().getDiagnosticos().size();
+                    paciente.getHistoriaClinica().getTratamientos().size();
+                }
+            }
+            return Collections.unmodifiableList(pacientes);
+        } finally {
+            em.close();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package servicios;
+
+import entidades.Cita;
+import lombok.Getter;
+import lombok.ToString;
+
+// Resultado de una solicitud dentro de un lote: la cita creada o el motivo del rechazo
+@Getter
+@ToString
+public class ResultadoCita {
+    private final SolicitudCita solicitud;
+    private final Cita cita;
+    private final MotivoRechazo motivo;
+    private final String motivoRechazo;
+
+    private ResultadoCita(SolicitudCita solicitud, Cita cita, MotivoRechazo motivo, String motivoRechazo) {
+        this.solicitud = solicitud;
+        this.cita = cita;
+        this.motivo = motivo;
+        this.motivoRechazo = motivoRechazo;
+    }
+
+    static ResultadoCita aceptada(SolicitudCita solicitud, Cita cita) {
+        return new ResultadoCita(solicitud, cita, null, null);
+    }
+
+    static ResultadoCita rechazada(SolicitudCita solicitud, MotivoRechazo motivo, String mensaje) {
+        return new ResultadoCita(solicitud, null, motivo, mensaje);
+    }
+
+    static ResultadoCita rechazada(SolicitudCita solicitud, CitaException e) {
+        return rechazada(solicitud, e.getMotivo(), e.getMessage());
+    }
+
+    public boolean isAceptada() {
+        return cita != null;
+    }
+}
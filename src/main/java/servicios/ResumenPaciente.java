@@ -0,0 +1,10 @@
+package servicios;
+
+import entidades.TipoSangre;
+
+import java.time.LocalDate;
+
+// Datos de un paciente para listados, con el número de historia y cuántas citas y alergias tiene
+public record ResumenPaciente(Long id, String dni, String nombre, String apellido, LocalDate fechaNacimiento,
+                              TipoSangre tipoSangre, String numeroHistoria, long citas, int alergias) {
+}
@@ -0,0 +1,276 @@
+package servicios;
+
+import entidades.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+// Snapshot binario de las citas, alternativa compacta al CSV de guardarCitas.
+// Formato (version 1):
+//   cabecera: MAGIA (int) y VERSION (byte)
+//   tres diccionarios (DNIs de pacientes, DNIs de médicos, números de sala): cantidad y textos UTF-8
+//   cantidad de citas y por cada una: índices en los diccionarios, segundos desde la cita anterior
+//   (zigzag), nanos, escala y valor sin escala del costo, ordinal del estado y observaciones
+//   cierre: CRC32 de todo lo anterior
+// Los enteros van como varint. El estado se guarda por ordinal: agregar estados al final de
+// EstadoCita es compatible, reordenarlos obliga a subir VERSION.
+final class SnapshotCitas {
+    static final int MAGIA = 0x43495441; // "CITA"
+    static final byte VERSION = 1;
+    private static final int TAMANIO_BUFFER = 1 << 20;
+    // Campos fijos de una cita en el peor caso: 3 índices, segundos, nanos, escala, costo, estado y largo
+    private static final int MAXIMO_CITA = 9 * CodificacionBinaria.MAXIMO_VARLONG;
+
+    private SnapshotCitas() {
+    }
+
+    // 'citas' no debe cambiar durante la escritura: se recorre dos veces (diccionarios y citas).
+    // Escribe primero a un temporal y lo renombra, asi un corte a mitad de camino no pisa el snapshot anterior
+    static void escribir(Path archivo, Collection<Cita> citas) throws IOException {
+        Map<String, Integer> pacientes = new LinkedHashMap<>();
+        Map<String, Integer> medicos = new LinkedHashMap<>();
+        Map<String, Integer> salas = new LinkedHashMap<>();
+        for (Cita cita : citas) {
+            pacientes.putIfAbsent(cita.getPaciente().getDni(), pacientes.size());
+            medicos.putIfAbsent(cita.getMedico().getDni(), medicos.size());
+            salas.putIfAbsent(cita.getSala().getNumero(), salas.size());
+        }
+
+        Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            Escritor escritor = new Escritor(canal);
+            escritor.buffer.putInt(MAGIA);
+            escritor.buffer.put(VERSION);
+            escritor.diccionario(pacientes);
+            escritor.diccionario(medicos);
+            escritor.diccionario(salas);
+
+            escritor.asegurar(CodificacionBinaria.MAXIMO_VARLONG);
+            CodificacionBinaria.escribirVarLong(escritor.buffer, citas.size());
+            long segundosAnterior = 0;
+            for (Cita cita : citas) {
+                segundosAnterior = escritor.cita(cita, pacientes, medicos, salas, segundosAnterior);
+            }
+            escritor.cerrar();
+            canal.force(true);
+        }
+
+        try {
+            Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // Mapea el snapshot en memoria y verifica cabecera y CRC antes de que se toque ninguna cita
+    static ByteBuffer abrir(Path archivo) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            long tamanio = canal.size();
+            if (tamanio > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot de citas demasiado grande para mapear: " + tamanio + " bytes");
+            }
+            buffer = canal.map(FileChannel.MapMode.READ_ONLY, 0, tamanio);
+        }
+
+        int cuerpo = buffer.limit() - Integer.BYTES;
+        if (cuerpo < Integer.BYTES + 1 || buffer.getInt(0) != MAGIA) {
+            throw new IOException("El archivo no es un snapshot de citas: " + archivo);
+        }
+        if (buffer.get(Integer.BYTES) != VERSION) {
+            throw new IOException("Versión de snapshot de citas no soportada: " + buffer.get(Integer.BYTES));
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().limit(cuerpo));
+        if ((int) crc.getValue() != buffer.getInt(cuerpo)) {
+            throw new IOException("Snapshot de citas corrupto (CRC inválido): " + archivo);
+        }
+        return buffer.position(Integer.BYTES + 1).limit(cuerpo);
+    }
+
+    // Entrega cada cita del snapshot abierto al destino. Las citas cuyo paciente, médico o sala ya no
+    // existen, o que el destino rechaza, quedan en el reporte con su número de orden.
+    static ReporteImportacion leer(ByteBuffer snapshot, Map<String, Paciente> pacientes, Map<String, Medico> medicos,
+                                   Map<String, Sala> salas, ImportadorCitasCsv.DestinoCita destino)
+            throws IOException {
+        try {
+            return leerCitas(snapshot, pacientes, medicos, salas, destino);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalStateException
+                 | IllegalArgumentException | DateTimeException e) {
+            throw new IOException("Snapshot de citas mal formado", e);
+        }
+    }
+
+    private static ReporteImportacion leerCitas(ByteBuffer buffer, Map<String, Paciente> pacientesPorDni,
+                                                Map<String, Medico> medicosPorDni, Map<String, Sala> salasPorNumero,
+                                                ImportadorCitasCsv.DestinoCita destino) {
+        String[] dniPacientes = leerDiccionario(buffer);
+        String[] dniMedicos = leerDiccionario(buffer);
+        String[] numerosSala = leerDiccionario(buffer);
+        Paciente[] pacientes = resolver(dniPacientes, pacientesPorDni::get, new Paciente[dniPacientes.length]);
+        Medico[] medicos = resolver(dniMedicos, medicosPorDni::get, new Medico[dniMedicos.length]);
+        Sala[] salas = resolver(numerosSala, salasPorNumero::get, new Sala[numerosSala.length]);
+        EstadoCita[] estados = EstadoCita.values();
+
+        ReporteImportacion reporte = new ReporteImportacion();
+        long cantidad = CodificacionBinaria.leerVarLong(buffer);
+        long segundos = 0;
+        for (long numero = 1; numero <= cantidad; numero++) {
+            int paciente = CodificacionBinaria.leerVarInt(buffer);
+            int medico = CodificacionBinaria.leerVarInt(buffer);
+            int sala = CodificacionBinaria.leerVarInt(buffer);
+            segundos += CodificacionBinaria.desZigzag(CodificacionBinaria.leerVarLong(buffer));
+            int nanos = CodificacionBinaria.leerVarInt(buffer);
+            int escala = CodificacionBinaria.leerVarInt(buffer);
+            long costo = CodificacionBinaria.desZigzag(CodificacionBinaria.leerVarLong(buffer));
+            int estado = buffer.get() & 0xFF;
+            String observaciones = CodificacionBinaria.leerTexto(buffer);
+
+            // El registro se lee completo antes de validar, para no desalinear el buffer
+            if (pacientes[paciente] == null) {
+                reporte.rechazada(numero, "Paciente no encontrado: " + dniPacientes[paciente]);
+            } else if (medicos[medico] == null) {
+                reporte.rechazada(numero, "Médico no encontrado: " + dniMedicos[medico]);
+            } else if (salas[sala] == null) {
+                reporte.rechazada(numero, "Sala no encontrada: " + numerosSala[sala]);
+            } else if (estado >= estados.length) {
+                reporte.rechazada(numero, "Estado inválido en snapshot de Cita: " + estado);
+            } else {
+                Cita cita = Cita.builder()
+                        .paciente(pacientes[paciente])
+                        .medico(medicos[medico])
+                        .sala(salas[sala])
+                        .fechaHora(LocalDateTime.ofEpochSecond(segundos, nanos, ZoneOffset.UTC))
+                        .costo(BigDecimal.valueOf(costo, escala))
+                        .estado(estados[estado])
+                        .observaciones(observaciones)
+                        .build();
+                try {
+                    destino.aceptar(cita);
+                    reporte.aceptada();
+                } catch (CitaException e) {
+                    reporte.rechazada(numero, e.getMessage());
+                }
+            }
+        }
+        if (buffer.hasRemaining()) {
+            throw new IllegalStateException("Bytes sobrantes al final del snapshot");
+        }
+        return reporte;
+    }
+
+    private static String[] leerDiccionario(ByteBuffer buffer) {
+        String[] textos = new String[CodificacionBinaria.leerVarInt(buffer)];
+        for (int i = 0; i < textos.length; i++) {
+            textos[i] = CodificacionBinaria.leerTexto(buffer);
+        }
+        return textos;
+    }
+
+    private static <T> T[] resolver(String[] claves, Function<String, T> buscar, T[] destino) {
+        for (int i = 0; i < claves.length; i++) {
+            destino[i] = buscar.apply(claves[i]);
+        }
+        return destino;
+    }
+
+    // Buffer de escritura que se vuelca al canal cuando se llena, acumulando el CRC de lo escrito
+    private static class Escritor {
+        private final FileChannel canal;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(TAMANIO_BUFFER);
+        private final CRC32 crc = new CRC32();
+
+        Escritor(FileChannel canal) {
+            this.canal = canal;
+        }
+
+        void asegurar(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                volcar();
+            }
+        }
+
+        void diccionario(Map<String, Integer> claves) throws IOException {
+            asegurar(CodificacionBinaria.MAXIMO_VARLONG);
+            CodificacionBinaria.escribirVarLong(buffer, claves.size());
+            for (String clave : claves.keySet()) {
+                texto(CodificacionBinaria.bytes(clave));
+            }
+        }
+
+        long cita(Cita cita, Map<String, Integer> pacientes, Map<String, Integer> medicos,
+                  Map<String, Integer> salas, long segundosAnterior) throws IOException {
+            LocalDateTime fechaHora = cita.getFechaHora();
+            long segundos = fechaHora.toEpochSecond(ZoneOffset.UTC);
+            BigDecimal costo = CodificacionBinaria.costoCodificable(cita.getCosto());
+            if (costo == null) {
+                throw new IOException("Costo fuera de rango para el snapshot: " + cita.getCosto());
+            }
+
+            asegurar(MAXIMO_CITA);
+            CodificacionBinaria.escribirVarLong(buffer, pacientes.get(cita.getPaciente().getDni()));
+            CodificacionBinaria.escribirVarLong(buffer, medicos.get(cita.getMedico().getDni()));
+            CodificacionBinaria.escribirVarLong(buffer, salas.get(cita.getSala().getNumero()));
+            CodificacionBinaria.escribirVarLong(buffer, CodificacionBinaria.zigzag(segundos - segundosAnterior));
+            CodificacionBinaria.escribirVarLong(buffer, fechaHora.getNano());
+            CodificacionBinaria.escribirVarLong(buffer, costo.scale());
+            CodificacionBinaria.escribirVarLong(buffer, CodificacionBinaria.zigzag(costo.unscaledValue().longValue()));
+            buffer.put((byte) cita.getEstado().ordinal());
+            texto(CodificacionBinaria.bytes(cita.getObservaciones()));
+            return segundos;
+        }
+
+        // Los textos más grandes que el buffer se escriben en partes
+        private void texto(byte[] utf8) throws IOException {
+            asegurar(CodificacionBinaria.MAXIMO_VARLONG);
+            CodificacionBinaria.escribirVarLong(buffer, utf8.length);
+            int escritos = 0;
+            while (escritos < utf8.length) {
+                if (!buffer.hasRemaining()) {
+                    volcar();
+                }
+                int parte = Math.min(buffer.remaining(), utf8.length - escritos);
+                buffer.put(utf8, escritos, parte);
+                escritos += parte;
+            }
+        }
+
+        void cerrar() throws IOException {
+            volcar();
+            buffer.putInt((int) crc.getValue());
+            buffer.flip();
+            escribirCanal();
+        }
+
+        private void volcar() throws IOException {
+            buffer.flip();
+            crc.update(buffer.duplicate());
+            escribirCanal();
+        }
+
+        private void escribirCanal() throws IOException {
+            while (buffer.hasRemaining()) {
+                canal.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
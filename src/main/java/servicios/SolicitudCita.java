@@ -0,0 +1,30 @@
+package servicios;
+
+import entidades.Medico;
+import entidades.Paciente;
+import entidades.Sala;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Getter
+@ToString(exclude = {"paciente", "medico", "sala"})
+public class SolicitudCita {
+    private final Paciente paciente;
+    private final Medico medico;
+    private final Sala sala;
+    private final LocalDateTime fechaHora;
+    private final BigDecimal costo;
+
+    @Builder
+    public SolicitudCita(Paciente paciente, Medico medico, Sala sala, LocalDateTime fechaHora, BigDecimal costo) {
+        this.paciente = paciente;
+        this.medico = medico;
+        this.sala = sala;
+        this.fechaHora = fechaHora;
+        this.costo = costo;
+    }
+}
@@ -0,0 +1,24 @@
+package servicios;
+
+import entidades.Medico;
+import entidades.Sala;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+@Getter
+@ToString(exclude = {"medico", "sala"})
+public class TurnoDisponible {
+    private final Medico medico;
+    private final Sala sala;
+    private final LocalDateTime inicio;
+    private final LocalDateTime fin;
+
+    TurnoDisponible(Medico medico, Sala sala, LocalDateTime inicio, LocalDateTime fin) {
+        this.medico = medico;
+        this.sala = sala;
+        this.inicio = inicio;
+        this.fin = fin;
+    }
+}